@@ -1,17 +1,50 @@
 package com.example.camerapreview;
 
 import android.content.Context;
+import android.graphics.Matrix;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.TextureView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.camerapreview.core.PreviewGeometry;
+
+/**
+ * 按宽高比显示预览的 TextureView。
+ * <p>
+ * 宽高比未变化的设置直接忽略；同一帧内的多次变化合并到下一帧的 {@link Choreographer} 回调中，只请求一次布局。
+ * 开启 {@link #setTransformOnly(boolean)} 后 View 保持父布局给出的大小，只通过变换矩阵缩放内容，不触发重新布局，
+ * 适合分屏拖动或容器动画等尺寸频繁变化的场景。
+ */
 public class AutoFitTextureView extends TextureView {
 
     private static final String TAG = "AutoFitTextureView";
     private int mRatioWidth = 0;
     private int mRatioHeight = 0;
+    // 复用，onMeasure 不分配内存
+    private final int[] measured = new int[2];
+    // 上次测量的输入，相同时直接复用结果
+    private int lastWidthMeasureSpec;
+    private int lastHeightMeasureSpec;
+    private int lastRatioWidth = -1;
+    private int lastRatioHeight = -1;
+    private boolean transformOnly = false;
+    private final Matrix transformMatrix = new Matrix();
+    private final int[] fitted = new int[2];
+    private boolean frameScheduled = false;
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameScheduled = false;
+            if (transformOnly) {
+                applyTransform(getWidth(), getHeight());
+            } else {
+                requestLayout();
+            }
+        }
+    };
 
     public AutoFitTextureView(@NonNull Context context) {
         super(context);
@@ -29,31 +62,97 @@ public class AutoFitTextureView extends TextureView {
         super(context, attrs, defStyleAttr, defStyleRes);
     }
 
+    /**
+     * 设置宽高比，需在 UI 线程调用。与当前值相同时不做任何事，否则在下一帧生效。
+     */
     public void setAspectRatio(int width, int height) {
         if (width < 0 || height < 0) {
             throw new IllegalArgumentException("Size cannot be negative.");
         }
+        if (width == mRatioWidth && height == mRatioHeight) {
+            return;
+        }
         mRatioWidth = width;
         mRatioHeight = height;
+        scheduleUpdate();
+    }
+
+    /**
+     * 只通过变换矩阵适配宽高比，View 自身的大小由父布局决定。
+     */
+    public void setTransformOnly(boolean transformOnly) {
+        if (this.transformOnly == transformOnly) {
+            return;
+        }
+        this.transformOnly = transformOnly;
+        if (!transformOnly) {
+            // 恢复为按宽高比布局，清除变换
+            transformMatrix.reset();
+            setTransform(transformMatrix);
+        }
+        // 切换模式需要重新布局一次，变换在 onSizeChanged 或下一帧更新
+        lastRatioWidth = -1;
         requestLayout();
+        if (transformOnly) {
+            scheduleUpdate();
+        }
+    }
+
+    public boolean isTransformOnly() {
+        return transformOnly;
+    }
+
+    private void scheduleUpdate() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+        super.onDetachedFromWindow();
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int width = MeasureSpec.getSize(widthMeasureSpec);
-        int height = MeasureSpec.getSize(heightMeasureSpec);
-        if (mRatioWidth == 0 || mRatioHeight == 0) {
-            setMeasuredDimension(width, height);
-        } else {
-            //横屏
-            if (width < height * mRatioWidth / mRatioHeight) {
-                setMeasuredDimension(width, width * mRatioHeight / mRatioWidth);
-            }
-            //竖屏
-            else {
-                setMeasuredDimension(height * mRatioWidth / mRatioHeight, height);
-            }
+        if (transformOnly) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        if (widthMeasureSpec != lastWidthMeasureSpec || heightMeasureSpec != lastHeightMeasureSpec
+                || mRatioWidth != lastRatioWidth || mRatioHeight != lastRatioHeight) {
+            lastWidthMeasureSpec = widthMeasureSpec;
+            lastHeightMeasureSpec = heightMeasureSpec;
+            lastRatioWidth = mRatioWidth;
+            lastRatioHeight = mRatioHeight;
+            PreviewGeometry.measureAspectRatio(MeasureSpec.getSize(widthMeasureSpec),
+                    MeasureSpec.getSize(heightMeasureSpec), mRatioWidth, mRatioHeight, measured);
+        }
+        setMeasuredDimension(measured[0], measured[1]);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (transformOnly) {
+            applyTransform(w, h);
+        }
+    }
+
+    // 将内容按宽高比缩放并居中，等价于布局模式下的 View 大小
+    private void applyTransform(int viewWidth, int viewHeight) {
+        if (viewWidth == 0 || viewHeight == 0) {
+            return;
         }
+        PreviewGeometry.measureAspectRatio(viewWidth, viewHeight, mRatioWidth, mRatioHeight, fitted);
+        float scaleX = (float) fitted[0] / viewWidth;
+        float scaleY = (float) fitted[1] / viewHeight;
+        transformMatrix.setScale(scaleX, scaleY, viewWidth / 2f, viewHeight / 2f);
+        setTransform(transformMatrix);
     }
-}
\ No newline at end of file
+}
@@ -1,49 +1,46 @@
 package com.example.camerapreview;
 
 import android.Manifest;
-import android.content.Context;
 import android.content.pm.PackageManager;
 import android.graphics.SurfaceTexture;
-import android.hardware.camera2.CameraAccessException;
-import android.hardware.camera2.CameraCaptureSession;
-import android.hardware.camera2.CameraCharacteristics;
-import android.hardware.camera2.CameraDevice;
-import android.hardware.camera2.CameraManager;
-import android.hardware.camera2.CaptureRequest;
-import android.hardware.camera2.params.StreamConfigurationMap;
 import android.os.Bundle;
+import android.os.Environment;
 import android.util.Log;
 import android.util.Size;
-import android.view.Surface;
 import android.view.TextureView;
 import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.app.ActivityCompat;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import com.example.camerapreview.camera2.CameraPreviewController;
+import com.example.camerapreview.camera2.ZslCaptureStream;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "Camera2Preview";
     public static final int PERMISSIONS_REQUEST_CAMERA = 100;
+    // 解绑时只暂停重复请求、保留会话，设为 false 则关闭相机
+    private static final boolean PAUSE_ON_UNBIND = true;
+    // 发热或掉帧时自动降低预览档位与尺寸
+    private static final boolean ADAPTIVE_QUALITY = true;
+    // 长按预览以零延迟方式拍照，保存到应用的图片目录；非 FULL 设备上输出限制在 1080p 以内
+    private static final boolean ZSL_CAPTURE = false;
+    // 只用变换矩阵适配宽高比，尺寸变化时不重新布局
+    private static final boolean TRANSFORM_ONLY_RESIZE = false;
     private AutoFitTextureView autoFitTextureView;
-    private CameraDevice mCameraDevice;
-    private Size imageDimension;
-    private CaptureRequest.Builder captureRequestBuilder;
-    private CameraCaptureSession cameraCaptureSession;
-    private Surface surface;
-    private int textureViewWidth;
-    private int textureViewHeight;
-    private boolean isBind = false;
     private boolean isFirstStart = true;
+    // 相机的打开、预览与关闭都由 previewController 在相机线程完成
+    private CameraPreviewController previewController;
 
 
     @Override
@@ -53,22 +50,29 @@ public class MainActivity extends AppCompatActivity {
 
         initPermission(); // 权限申请
         initTextureView();
+        // 在请求权限的同时预先加载相机参数
+        previewController.prewarm();
+        if (checkSelfPermission(Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            // API 26 及以上相机打开与 View 初始化并行，否则等待 onSurfaceTextureAvailable
+            previewController.start();
+        }
 
         Button bindButton = findViewById(R.id.bind);
         Button unbindButton = findViewById(R.id.unbind);
         bindButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if (!isBind) {
-                    openCamera();
-                }
+                // 重复的绑定请求由状态机合并
+                previewController.start();
             }
         });
         unbindButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if (isBind) {
-                    releasePreview();
+                if (PAUSE_ON_UNBIND) {
+                    previewController.pause();
+                } else {
+                    previewController.unbind();
                 }
             }
         });
@@ -86,7 +90,7 @@ public class MainActivity extends AppCompatActivity {
         switch (requestCode) {
             case PERMISSIONS_REQUEST_CAMERA:
                 if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                    openCamera();
+                    previewController.start();
                 } else {
                     Toast.makeText(MainActivity.this, "Camera permission is required to take a photo.", Toast.LENGTH_SHORT).show();
                 }
@@ -102,33 +106,92 @@ public class MainActivity extends AppCompatActivity {
             // 打开应用时不启动相机
             isFirstStart = false;
         } else {
-            if (!isBind) {
-                openCamera();
-            }
+            previewController.start();
         }
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        releasePreview();
+        // 暂停预览，宽限期内回到前台无需重新打开相机
+        previewController.stop();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        releasePreview();
+        previewController.release();
+    }
+
+    private void takeZslPicture() {
+        previewController.takeZslPicture(new ZslCaptureStream.Callback() {
+            @Override
+            public void onPictureTaken(@NonNull byte[] jpeg, long timestampNs) {
+                // 在编码线程写文件
+                File file = new File(getExternalFilesDir(Environment.DIRECTORY_PICTURES), "zsl_" + timestampNs + ".jpg");
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(jpeg);
+                } catch (IOException e) {
+                    Log.e(TAG, "Save picture failed", e);
+                    return;
+                }
+                runOnUiThread(() -> Toast.makeText(MainActivity.this, file.getName(), Toast.LENGTH_SHORT).show());
+            }
+
+            @Override
+            public void onError(@NonNull String reason) {
+                Log.w(TAG, "ZSL capture failed: " + reason);
+            }
+        });
+    }
+
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        // adb shell dumpsys activity com.example.camerapreview 导出启动耗时与帧统计
+        previewController.dump(prefix, writer);
     }
 
     private void initTextureView() {
         autoFitTextureView = findViewById(R.id.texture_view);
+        autoFitTextureView.setTransformOnly(TRANSFORM_ONLY_RESIZE);
+        previewController = new CameraPreviewController(this, autoFitTextureView, new CameraPreviewController.Listener() {
+            @Override
+            public void onPreviewSizeSelected(@NonNull Size previewSize) {
+                int viewWidth = previewSize.getWidth();
+                int viewHeight = previewSize.getHeight();
+                if (viewWidth > viewHeight) {
+                    // swap
+                    viewWidth ^= viewHeight;
+                    viewHeight ^= viewWidth;
+                    viewWidth ^= viewHeight;
+                }
+                autoFitTextureView.setAspectRatio(viewWidth, viewHeight);
+            }
+
+            @Override
+            public void onConfigureFailed() {
+                Toast.makeText(MainActivity.this, "Configuration change", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onOpenFailed(@NonNull String message) {
+                Toast.makeText(MainActivity.this, "Camera unavailable: " + message, Toast.LENGTH_SHORT).show();
+            }
+        });
+        previewController.setAdaptiveQuality(ADAPTIVE_QUALITY);
+        previewController.setZslEnabled(ZSL_CAPTURE);
+        if (ZSL_CAPTURE) {
+            autoFitTextureView.setOnLongClickListener(view -> {
+                takeZslPicture();
+                return true;
+            });
+        }
         autoFitTextureView.setSurfaceTextureListener(new TextureView.SurfaceTextureListener() {
             @Override
             public void onSurfaceTextureAvailable(@NonNull SurfaceTexture surface, int width, int height) {
                 Log.i(TAG, "onSurfaceTextureAvailable");
-                textureViewWidth = width;
-                textureViewHeight = height;
-                openCamera();
+                previewController.onSurfaceTextureAvailable(width, height);
             }
 
             @Override
@@ -145,169 +208,8 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onSurfaceTextureUpdated(@NonNull SurfaceTexture surface) {
                 // Log.i(TAG, "onSurfaceTextureUpdated");
+                previewController.onSurfaceTextureUpdated();
             }
         });
     }
-
-    private void releasePreview() {
-        if (captureRequestBuilder != null) {
-            captureRequestBuilder.removeTarget(surface);
-            captureRequestBuilder = null;
-        }
-        if (surface != null) {
-            surface.release();
-            surface = null;
-        }
-        if (cameraCaptureSession != null) {
-            try {
-                cameraCaptureSession.stopRepeating();
-                cameraCaptureSession.abortCaptures();
-            } catch (CameraAccessException e) {
-                throw new RuntimeException(e);
-            }
-            cameraCaptureSession = null;
-        }
-        if (mCameraDevice != null) {
-            mCameraDevice.close();
-            mCameraDevice = null;
-        }
-
-        isBind = false;
-    }
-
-    // 相机状态监听
-    private final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
-        @Override
-        public void onOpened(@NonNull CameraDevice camera) {
-            // 相机打开时执行
-            Log.i(TAG, "onOpened");
-            mCameraDevice = camera;
-            // 创建相机预览会话
-            createCameraPreviewSession();
-        }
-
-        @Override
-        public void onDisconnected(@NonNull CameraDevice camera) {
-            // 相机断开
-        }
-
-        @Override
-        public void onError(@NonNull CameraDevice camera, int error) {
-
-        }
-    };
-
-    private void openCamera() {
-        // 获取 CameraManager 实例
-        CameraManager cameraManager = (CameraManager) getSystemService(Context.CAMERA_SERVICE);
-        try {
-            // 获取第一个相机 ID
-            String cameraId = cameraManager.getCameraIdList()[0];
-            // 通过 cameraId 获取 Camera 参数
-            CameraCharacteristics characteristics = cameraManager.getCameraCharacteristics(cameraId);
-            // 获取支持的分辨率
-            StreamConfigurationMap map = characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
-            Size[] outputSizes = map.getOutputSizes(SurfaceTexture.class);
-            imageDimension = getOptimalSize(outputSizes);
-
-            int viewWidth = imageDimension.getWidth();
-            int viewHeight = imageDimension.getHeight();
-            if (viewWidth > viewHeight) {
-                // swap
-                viewWidth ^= viewHeight;
-                viewHeight ^= viewWidth;
-                viewWidth ^= viewHeight;
-            }
-            autoFitTextureView.setAspectRatio(viewWidth, viewHeight);
-
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
-                return;
-            }
-            cameraManager.openCamera(cameraId, stateCallback, null);
-
-            isBind = true;
-        } catch (CameraAccessException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Size getOptimalSize(Size[] outputSizes) {
-        Size tempSize;
-        List<Size> sizes = new ArrayList<>();
-        for (Size outputSize : outputSizes) {
-            if (textureViewWidth > textureViewHeight) {
-                // 横屏
-                if (outputSize.getHeight() > textureViewHeight && outputSize.getWidth() > textureViewWidth) {
-                    sizes.add(outputSize);
-                }
-            } else {
-                // 竖屏
-                if (outputSize.getWidth() > textureViewHeight && outputSize.getHeight() > textureViewWidth) {
-                    sizes.add(outputSize);
-                }
-            }
-        }
-
-        if (!sizes.isEmpty()) {
-            // 如果有多个符合条件找到一个差距最小的，最接近预览分辨率的
-            tempSize = sizes.get(0);
-            int minnum = 999999;
-            for (Size size : sizes) {
-                int num = size.getHeight() * size.getHeight() - textureViewWidth * textureViewHeight;
-                if (num < minnum) {
-                    minnum = num;
-                    tempSize = size;
-                }
-            }
-        } else {
-            // outputView 分辨率小于 textureView 时选取最大的 size
-            Comparator<Size> comparator = Comparator.comparingInt(size -> size.getWidth() * size.getHeight());
-            tempSize = Collections.max(Arrays.asList(outputSizes), comparator);
-        }
-        return tempSize;
-    }
-
-    private void createCameraPreviewSession() {
-        SurfaceTexture surfaceTexture = autoFitTextureView.getSurfaceTexture();
-        assert surfaceTexture != null;
-
-        surfaceTexture.setDefaultBufferSize(imageDimension.getWidth(), imageDimension.getHeight());
-        // 预览的输出画面
-        surface = new Surface(surfaceTexture);
-
-        try {
-            // 预览请求
-            captureRequestBuilder = mCameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
-            captureRequestBuilder.addTarget(surface);
-            // 自动聚焦
-            captureRequestBuilder.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
-            // 创建会话
-            mCameraDevice.createCaptureSession(Collections.singletonList(surface),
-                    new CameraCaptureSession.StateCallback() {
-                        // 会话的状态监听
-                        @Override
-                        public void onConfigured(@NonNull CameraCaptureSession session) {
-                            if (mCameraDevice == null) {
-                                return;
-                            }
-
-                            cameraCaptureSession = session;
-                            try {
-                                cameraCaptureSession.setRepeatingRequest(captureRequestBuilder.build(), null, null);
-                            } catch (CameraAccessException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-
-                        @Override
-                        public void onConfigureFailed(@NonNull CameraCaptureSession session) {
-                            Toast.makeText(MainActivity.this, "Configuration change", Toast.LENGTH_SHORT).show();
-                        }
-                    }, null);
-        } catch (CameraAccessException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
-
-
@@ -0,0 +1,121 @@
+package com.example.camerapreview;
+
+import static org.junit.Assert.assertEquals;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Matrix;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.example.camerapreview.core.PreviewGeometry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class AutoFitTextureViewTest {
+
+    private FrameLayout container;
+    private CountingView view;
+
+    // 统计布局请求与测量次数
+    static class CountingView extends AutoFitTextureView {
+        int layoutRequests;
+        int measures;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        void reset() {
+            layoutRequests = 0;
+            measures = 0;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        container = new FrameLayout(activity);
+        view = new CountingView(activity);
+        container.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT, Gravity.CENTER));
+        activity.setContentView(container);
+        nextFrame();
+        view.reset();
+    }
+
+    @Test
+    public void burstOfChangesRequestsOneLayout() {
+        view.setAspectRatio(9, 16);
+        view.setAspectRatio(1, 1);
+        view.setAspectRatio(3, 4);
+        assertEquals(0, view.layoutRequests);
+
+        nextFrame();
+        assertEquals(1, view.layoutRequests);
+        int[] expected = new int[2];
+        PreviewGeometry.measureAspectRatio(container.getWidth(), container.getHeight(), 3, 4, expected);
+        assertEquals(expected[0], view.getWidth());
+        assertEquals(expected[1], view.getHeight());
+    }
+
+    @Test
+    public void unchangedRatioIsNoOp() {
+        view.setAspectRatio(3, 4);
+        nextFrame();
+        view.reset();
+
+        view.setAspectRatio(3, 4);
+        nextFrame();
+        assertEquals(0, view.layoutRequests);
+        assertEquals(0, view.measures);
+    }
+
+    @Test
+    public void transformOnlyDoesNotRelayout() {
+        view.setTransformOnly(true);
+        nextFrame();
+        view.reset();
+
+        view.setAspectRatio(3, 4);
+        view.setAspectRatio(9, 16);
+        nextFrame();
+        assertEquals(0, view.layoutRequests);
+        assertEquals(0, view.measures);
+        assertEquals(container.getWidth(), view.getWidth());
+        assertEquals(container.getHeight(), view.getHeight());
+
+        int[] expected = new int[2];
+        PreviewGeometry.measureAspectRatio(container.getWidth(), container.getHeight(), 9, 16, expected);
+        float[] values = new float[9];
+        view.getTransform(null).getValues(values);
+        assertEquals((float) expected[0] / container.getWidth(), values[Matrix.MSCALE_X], 1e-4f);
+        assertEquals((float) expected[1] / container.getHeight(), values[Matrix.MSCALE_Y], 1e-4f);
+    }
+
+    // 执行 Choreographer 帧回调及随后的布局
+    private static void nextFrame() {
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.camerapreview;
+
+import android.app.Application;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.camera2.Camera2Config;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.CameraXConfig;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.core.content.ContextCompat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 进程启动时即开始初始化 CameraX，与 Activity 创建、权限申请并行。
+ * <p>
+ * 初始化只枚举后置相机，CameraX 内部操作在专用线程上执行。进程启动到 Provider 就绪、到首帧的耗时记录在
+ * {@link #getProviderReadyMillis()} 与 {@link #getFirstFrameMillis()}。
+ */
+public class CameraApplication extends Application implements CameraXConfig.Provider {
+
+    private static final String TAG = "CameraApplication";
+    // CameraX 的相机操作线程
+    private final ExecutorService cameraExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "CameraX");
+        }
+    });
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    private volatile long providerReadyMillis = -1;
+    private volatile long firstFrameMillis = -1;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 无需相机权限，获得权限前即可完成初始化
+        cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+        cameraProviderFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+                providerReadyMillis = sinceProcessStart();
+                Log.i(TAG, "Camera provider ready " + providerReadyMillis + "ms after process start");
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    @NonNull
+    @Override
+    public CameraXConfig getCameraXConfig() {
+        return CameraXConfig.Builder.fromConfig(Camera2Config.defaultConfig())
+                // 只初始化后置相机，跳过其余相机的枚举
+                .setAvailableCamerasLimiter(CameraSelector.DEFAULT_BACK_CAMERA)
+                .setCameraExecutor(cameraExecutor)
+                .setMinimumLoggingLevel(Log.WARN)
+                .build();
+    }
+
+    @NonNull
+    public ListenableFuture<ProcessCameraProvider> getCameraProviderFuture() {
+        return cameraProviderFuture;
+    }
+
+    /**
+     * 首帧显示时调用，只记录第一次。
+     */
+    public void onFirstFrame() {
+        if (firstFrameMillis < 0) {
+            firstFrameMillis = sinceProcessStart();
+            Log.i(TAG, "First frame " + firstFrameMillis + "ms after process start");
+        }
+    }
+
+    /**
+     * 进程启动到 Provider 就绪的耗时（毫秒），尚未就绪时为 -1。
+     */
+    public long getProviderReadyMillis() {
+        return providerReadyMillis;
+    }
+
+    /**
+     * 进程启动到首帧的耗时（毫秒），尚未出帧时为 -1。
+     */
+    public long getFirstFrameMillis() {
+        return firstFrameMillis;
+    }
+
+    private static long sinceProcessStart() {
+        return SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+    }
+}
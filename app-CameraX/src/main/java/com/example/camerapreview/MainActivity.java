@@ -3,6 +3,7 @@ package com.example.camerapreview;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
@@ -10,34 +11,78 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.camera.core.AspectRatio;
-import androidx.camera.core.Camera;
-import androidx.camera.core.CameraSelector;
-import androidx.camera.core.Preview;
-import androidx.camera.core.resolutionselector.AspectRatioStrategy;
-import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.Observer;
 
+import com.example.camerapreview.core.AnalyzerDispatcher;
+import com.example.camerapreview.core.BindLatencyMetrics;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public class MainActivity extends AppCompatActivity {
     public static final int PERMISSIONS_REQUEST_CAMERA = 100;
+    // 分析帧格式，可选 OUTPUT_IMAGE_FORMAT_YUV_420_888 或 OUTPUT_IMAGE_FORMAT_RGBA_8888
+    private static final int ANALYSIS_OUTPUT_FORMAT = ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888;
+    // 分析线程数，每个分析器同一时刻最多占用一个线程
+    private static final int ANALYSIS_THREADS = 2;
+    // 解绑按钮只摘下预览的 SurfaceProvider，用例保持绑定；设为 false 则解绑用例
+    private static final boolean DETACH_SURFACE_ON_UNBIND = true;
     private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
     private PreviewView previewView;
     private ProcessCameraProvider cameraProvider;
     private boolean isBind = false;
     private boolean isFirstStart = true;
+    // CameraX 在该线程交付分析帧，只做分发，不与分析器争用线程池
+    private final ExecutorService deliveryExecutor =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ImageAnalysisDelivery"));
+    // 分析器在固定大小的线程池上运行，不占用主线程
+    private final ExecutorService analysisExecutor = Executors.newFixedThreadPool(ANALYSIS_THREADS, new ThreadFactory() {
+        private int count = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "ImageAnalysis-" + count++);
+        }
+    });
+    private final AnalyzerDispatcher<ImageProxy> analyzerDispatcher =
+            new AnalyzerDispatcher<>(analysisExecutor, ImageProxy::close);
+    private UseCaseCache useCaseCache;
+    // 重新绑定用例与只挂上 SurfaceProvider 各自到首帧的耗时
+    private final BindLatencyMetrics bindLatency = new BindLatencyMetrics();
+    private volatile double averageLuma;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_camera);
         previewView = findViewById(R.id.previewView);
+        // 选择居中缩放使 Preview 适配 PreviewView
+        previewView.setScaleType(PreviewView.ScaleType.FIT_CENTER);
+        // 按传感器时间戳间隔统计 CameraX 在上游丢弃的帧
+        useCaseCache = new UseCaseCache(previewView, ANALYSIS_OUTPUT_FORMAT, deliveryExecutor,
+                image -> analyzerDispatcher.dispatch(image, image.getImageInfo().getTimestamp()));
+        // 记录进程启动到首帧、以及每次绑定到首帧的耗时
+        previewView.getPreviewStreamState().observe(this, new Observer<PreviewView.StreamState>() {
+            @Override
+            public void onChanged(PreviewView.StreamState state) {
+                if (state == PreviewView.StreamState.STREAMING) {
+                    ((CameraApplication) getApplication()).onFirstFrame();
+                    bindLatency.onFrame(SystemClock.elapsedRealtimeNanos());
+                }
+            }
+        });
         Button unbindButton = findViewById(R.id.unbind);
         unbindButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -57,9 +102,23 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // 示例分析器：计算画面平均亮度
+        addAnalyzer("luma", this::analyzeLuma);
         checkPermission();
     }
 
+    /**
+     * 添加分析器，分析器在分析线程池上运行。各分析器共用同一个 ImageProxy，所有分析器返回后才关闭，
+     * 在此之前 CameraX 不交付新帧，因此最慢的分析器决定所有分析器的帧率。
+     */
+    public void addAnalyzer(@NonNull String name, @NonNull AnalyzerDispatcher.Analyzer<ImageProxy> analyzer) {
+        analyzerDispatcher.addAnalyzer(name, analyzer);
+    }
+
+    public void removeAnalyzer(@NonNull String name) {
+        analyzerDispatcher.removeAnalyzer(name);
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
@@ -75,18 +134,60 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onStop() {
         super.onStop();
-        if (isBind) {
-            unbind();
+        if (useCaseCache.isBound()) {
+            // 进入后台时释放相机
+            releaseCamera();
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        ImageAnalysis imageAnalysis = useCaseCache.getImageAnalysis();
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
+        // 已提交的分析任务执行完后线程退出
+        deliveryExecutor.shutdown();
+        analysisExecutor.shutdown();
+    }
+
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        // adb shell dumpsys activity com.example.camerapreview 导出各分析器的延迟与丢帧统计
+        CameraApplication application = (CameraApplication) getApplication();
+        writer.print(prefix);
+        writer.println("Provider ready: " + application.getProviderReadyMillis() + "ms, first frame: "
+                + application.getFirstFrameMillis() + "ms after process start");
+        writer.print(prefix);
+        writer.println("Bind latency: " + bindLatency + ", use case allocations: "
+                + useCaseCache.getAllocationCount());
+        writer.print(prefix);
+        writer.println("Average luma: " + averageLuma);
+        writer.print(prefix);
+        writer.println("Analysis frames: " + analyzerDispatcher.getSourceFrameCount() + ", dropped by CameraX: "
+                + analyzerDispatcher.getSourceDroppedCount());
+        for (AnalyzerDispatcher.Stats stats : analyzerDispatcher.getStats()) {
+            writer.print(prefix);
+            writer.println(stats);
+        }
     }
 
     private void unbind() {
-        cameraProvider.unbindAll();
+        if (DETACH_SURFACE_ON_UNBIND) {
+            bindLatency.cancel();
+            useCaseCache.setPreviewEnabled(false);
+        } else {
+            releaseCamera();
+        }
+        isBind = false;
+    }
+
+    // 解绑用例，相机随之关闭
+    private void releaseCamera() {
+        bindLatency.cancel();
+        useCaseCache.unbind(cameraProvider);
         isBind = false;
     }
 
@@ -112,7 +213,8 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void initCameraProviderFuture() {
-        cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+        // 进程启动时已开始初始化，这里通常已经就绪
+        cameraProviderFuture = ((CameraApplication) getApplication()).getCameraProviderFuture();
         cameraProviderFuture.addListener(new Runnable() {
             @Override
             public void run() {
@@ -126,26 +228,31 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void bindPreview() {
-        // 选择 16:9 宽高比
-        AspectRatioStrategy aspectRatioStrategy = new AspectRatioStrategy(AspectRatio.RATIO_16_9, AspectRatioStrategy.FALLBACK_RULE_AUTO);
-        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
-                .setAspectRatioStrategy(aspectRatioStrategy)
-                .build();
-        Preview preview = new Preview.Builder()
-                .setResolutionSelector(resolutionSelector).build();
-        // 选择居中缩放使 Preview 适配 PreviewView
-        previewView.setScaleType(PreviewView.ScaleType.FIT_CENTER);
-        // 将 Preview 连接到 PreviewView
-        preview.setSurfaceProvider(previewView.getSurfaceProvider());
-
-        // 选择前置摄像头
-        CameraSelector cameraSelector = new CameraSelector.Builder()
-                .requireLensFacing(CameraSelector.LENS_FACING_BACK)
-                .build();
-        // 绑定
-        Camera camera = cameraProvider.bindToLifecycle(this, cameraSelector, preview);
+        if (useCaseCache.isBound()) {
+            // 用例仍绑定，只重新挂上 SurfaceProvider
+            bindLatency.begin(BindLatencyMetrics.Kind.RESUME, SystemClock.elapsedRealtimeNanos());
+            useCaseCache.setPreviewEnabled(true);
+        } else {
+            bindLatency.begin(BindLatencyMetrics.Kind.REBIND, SystemClock.elapsedRealtimeNanos());
+            // 重新绑定前的停顿不计为丢帧
+            analyzerDispatcher.markDiscontinuity();
+            // 复用缓存的用例绑定
+            useCaseCache.bind(cameraProvider, this);
+        }
         isBind = true;
     }
+
+    // 对第一个平面隔点采样求均值，YUV 时为 Y 平面亮度，RGBA 时为各通道均值
+    private void analyzeLuma(ImageProxy image) {
+        ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+        long sum = 0;
+        int samples = 0;
+        for (int i = 0; i < buffer.remaining(); i += 16) {
+            sum += buffer.get(i) & 0xFF;
+            samples++;
+        }
+        averageLuma = samples == 0 ? 0 : (double) sum / samples;
+    }
 }
 
 
@@ -0,0 +1,128 @@
+package com.example.camerapreview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.AspectRatio;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Executor;
+
+/**
+ * CameraX 用例缓存。
+ * <p>
+ * ResolutionSelector、CameraSelector、Preview 与 ImageAnalysis 只在第一次绑定时创建，之后每次绑定都复用同一组实例，
+ * 解绑时只解绑这两个用例而不是 unbindAll。{@link #setPreviewEnabled(boolean)} 只挂上或摘下 SurfaceProvider，
+ * 用例保持绑定，相机不重新配置。需在主线程调用。
+ */
+public class UseCaseCache {
+
+    private final PreviewView previewView;
+    private final int analysisOutputFormat;
+    private final Executor analysisExecutor;
+    private final ImageAnalysis.Analyzer analyzer;
+    private CameraSelector cameraSelector;
+    private Preview preview;
+    private ImageAnalysis imageAnalysis;
+    // 实际创建的 CameraX 对象数（策略、选择器与用例），每创建一个加一，复用时不再增加
+    private int allocationCount = 0;
+    private boolean bound = false;
+    private boolean previewEnabled = false;
+
+    public UseCaseCache(@NonNull PreviewView previewView, int analysisOutputFormat,
+                        @NonNull Executor analysisExecutor, @NonNull ImageAnalysis.Analyzer analyzer) {
+        this.previewView = previewView;
+        this.analysisOutputFormat = analysisOutputFormat;
+        this.analysisExecutor = analysisExecutor;
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * 绑定预览与分析用例，并连接到 PreviewView。
+     */
+    public void bind(@NonNull ProcessCameraProvider cameraProvider, @NonNull LifecycleOwner owner) {
+        if (bound) {
+            setPreviewEnabled(true);
+            return;
+        }
+        ensureUseCases();
+        cameraProvider.bindToLifecycle(owner, cameraSelector, preview, imageAnalysis);
+        bound = true;
+        setPreviewEnabled(true);
+    }
+
+    public void unbind(@NonNull ProcessCameraProvider cameraProvider) {
+        if (!bound) {
+            return;
+        }
+        setPreviewEnabled(false);
+        cameraProvider.unbind(preview, imageAnalysis);
+        bound = false;
+    }
+
+    /**
+     * 只挂上或摘下预览的 SurfaceProvider，用例保持绑定，分析不受影响。
+     */
+    public void setPreviewEnabled(boolean enabled) {
+        if (preview == null || previewEnabled == enabled) {
+            return;
+        }
+        previewEnabled = enabled;
+        preview.setSurfaceProvider(enabled ? previewView.getSurfaceProvider() : null);
+    }
+
+    public boolean isBound() {
+        return bound;
+    }
+
+    public boolean isPreviewEnabled() {
+        return previewEnabled;
+    }
+
+    @Nullable
+    public ImageAnalysis getImageAnalysis() {
+        return imageAnalysis;
+    }
+
+    public int getAllocationCount() {
+        return allocationCount;
+    }
+
+    private void ensureUseCases() {
+        if (preview != null) {
+            return;
+        }
+        // 选择 16:9 宽高比
+        AspectRatioStrategy aspectRatioStrategy =
+                new AspectRatioStrategy(AspectRatio.RATIO_16_9, AspectRatioStrategy.FALLBACK_RULE_AUTO);
+        allocationCount++;
+        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                .setAspectRatioStrategy(aspectRatioStrategy)
+                .build();
+        allocationCount++;
+        preview = new Preview.Builder()
+                .setResolutionSelector(resolutionSelector).build();
+        allocationCount++;
+
+        // 分析帧使用相同的宽高比，只保留最新一帧
+        imageAnalysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(resolutionSelector)
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setOutputImageFormat(analysisOutputFormat)
+                .build();
+        allocationCount++;
+        imageAnalysis.setAnalyzer(analysisExecutor, analyzer);
+
+        // 选择后置摄像头
+        cameraSelector = new CameraSelector.Builder()
+                .requireLensFacing(CameraSelector.LENS_FACING_BACK)
+                .build();
+        allocationCount++;
+    }
+}
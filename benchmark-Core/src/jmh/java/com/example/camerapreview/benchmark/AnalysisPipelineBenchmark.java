@@ -0,0 +1,105 @@
+package com.example.camerapreview.benchmark;
+
+import com.example.camerapreview.core.KeepLatestPipeline;
+import com.example.camerapreview.core.SyntheticFrameSource;
+import com.example.camerapreview.core.YuvFrame;
+import com.example.camerapreview.core.YuvToArgbConverter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端分析路径：合成相机按固定帧率产生 YUV 帧，经 {@link KeepLatestPipeline} 交给分析线程转换为 ARGB。
+ * <p>
+ * 每次调用运行 {@link #FRAMES} 帧，耗时即处理这些帧所需的墙钟时间；delivered、pipelineDropped、sourceDropped
+ * 计数器给出交付帧数与两处的丢帧数，用于判断分析能否跟上帧率。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class AnalysisPipelineBenchmark {
+
+    private static final int FRAMES = 120;
+    // 与 ImageAnalysisStream 相同
+    private static final int MAX_FRAMES = 4;
+
+    @Param({"640x480", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"30", "60"})
+    public int fps;
+
+    private int width;
+    private int height;
+    private ExecutorService analysisExecutor;
+    private YuvToArgbConverter converter;
+    private int[] argb;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long delivered;
+        public long pipelineDropped;
+        public long sourceDropped;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            delivered = 0;
+            pipelineDropped = 0;
+            sourceDropped = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        String[] parts = frameSize.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+        analysisExecutor = Executors.newSingleThreadExecutor();
+        converter = new YuvToArgbConverter();
+        argb = new int[width * height];
+    }
+
+    @TearDown
+    public void tearDown() {
+        analysisExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void run(Counters counters) throws Exception {
+        SyntheticFrameSource source = new SyntheticFrameSource(width, height, fps, MAX_FRAMES);
+        KeepLatestPipeline<YuvFrame> pipeline = new KeepLatestPipeline<>(analysisExecutor,
+                frame -> frame.toArgb(converter, argb), YuvFrame::close);
+        source.start(pipeline::offer);
+        while (source.getProducedCount() + source.getDroppedCount() < FRAMES) {
+            Thread.sleep(1);
+        }
+        source.stop();
+        pipeline.close();
+        // 等待分析线程处理完最后一帧
+        analysisExecutor.submit(() -> {
+        }).get();
+        counters.delivered += pipeline.getDeliveredCount();
+        counters.pipelineDropped += pipeline.getDroppedCount();
+        counters.sourceDropped += source.getDroppedCount();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.camerapreview.benchmark;
+
+import com.example.camerapreview.core.FrameScaler;
+import com.example.camerapreview.core.YuvFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整帧缩小到四分之一分辨率亮度的单帧耗时（NV21 排列，行跨度按 64 字节对齐），分别测量两种滤波与串行、并行。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class FrameScalerBenchmark {
+
+    @Param({"1280x720", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"BOX", "BILINEAR"})
+    public FrameScaler.Filter filter;
+
+    @Param({"serial", "parallel"})
+    public String mode;
+
+    private ForkJoinPool pool;
+    private FrameScaler scaler;
+    private YuvFrame frame;
+    private FrameScaler.Output out;
+
+    @Setup
+    public void setUp() {
+        String[] parts = frameSize.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        int rowStride = (width + 63) & ~63;
+        Random random = new Random(42);
+        ByteBuffer y = randomBuffer(random, rowStride * height);
+        ByteBuffer vu = randomBuffer(random, rowStride * height / 2);
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        frame = new YuvFrame(width, height, y, u, v, rowStride, rowStride, 2, 0, f -> {
+        });
+        out = new FrameScaler.Output(width / 2, height / 2, false);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        scaler = new FrameScaler(filter, pool, "parallel".equals(mode) ? 0 : Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public byte[] scale() {
+        scaler.scale(frame, out);
+        return out.getLuma();
+    }
+
+    private static ByteBuffer randomBuffer(Random random, int size) {
+        // 与 Image 的平面一样使用 direct buffer
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        buffer.put(data);
+        buffer.clear();
+        return buffer;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.camerapreview.benchmark;
+
+import com.example.camerapreview.core.PreviewGeometry;
+import com.example.camerapreview.core.Resolution;
+import com.example.camerapreview.core.ResolutionPolicyEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预览尺寸选择策略、居中适配变换与按宽高比测量的耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Thread)
+public class PreviewGeometryBenchmark {
+
+    // 常见后置相机对 SurfaceTexture 的输出尺寸
+    private static final Resolution[] OUTPUT_SIZES = {
+            new Resolution(4032, 3024), new Resolution(4000, 3000), new Resolution(3840, 2160),
+            new Resolution(3264, 2448), new Resolution(3200, 2400), new Resolution(2688, 1512),
+            new Resolution(2592, 1944), new Resolution(2048, 1536), new Resolution(1920, 1440),
+            new Resolution(1920, 1080), new Resolution(1600, 1200), new Resolution(1440, 1080),
+            new Resolution(1280, 960), new Resolution(1280, 720), new Resolution(1024, 768),
+            new Resolution(800, 600), new Resolution(720, 480), new Resolution(640, 480),
+            new Resolution(352, 288), new Resolution(320, 240), new Resolution(176, 144)
+    };
+
+    @Param({"1080x2400", "2400x1080", "720x1280"})
+    public String view;
+
+    private List<ResolutionPolicyEngine.Candidate> candidates;
+    private ResolutionPolicyEngine policy;
+    private int viewWidth;
+    private int viewHeight;
+    private final float[] transform = new float[4];
+    private final int[] measured = new int[2];
+
+    @Setup
+    public void setUp() {
+        candidates = new ArrayList<>();
+        for (Resolution size : OUTPUT_SIZES) {
+            // 4K 以上只能到 20 fps
+            long minFrameDurationNs = size.getArea() > 3840 * 2160 ? 50_000_000L : 33_333_333L;
+            candidates.add(new ResolutionPolicyEngine.Candidate(size, minFrameDurationNs));
+        }
+        policy = ResolutionPolicyEngine.createDefault();
+        String[] parts = view.split("x");
+        viewWidth = Integer.parseInt(parts[0]);
+        viewHeight = Integer.parseInt(parts[1]);
+    }
+
+    @Benchmark
+    public ResolutionPolicyEngine.Decision selectPreviewSize() {
+        return policy.select(candidates, viewWidth, viewHeight);
+    }
+
+    @Benchmark
+    public void fitCenter(Blackhole blackhole) {
+        PreviewGeometry.fitCenter(1920, 1080, viewWidth, viewHeight, transform);
+        blackhole.consume(transform);
+    }
+
+    @Benchmark
+    public void measureAspectRatio(Blackhole blackhole) {
+        PreviewGeometry.measureAspectRatio(viewWidth, viewHeight, 3, 4, measured);
+        blackhole.consume(measured);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.camerapreview.benchmark;
+
+import com.example.camerapreview.core.FrameRecorder;
+import com.example.camerapreview.core.RecordedFrameSource;
+import com.example.camerapreview.core.SyntheticFrameSource;
+import com.example.camerapreview.core.YuvToArgbConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以最快速度回放录制的帧并转换为 ARGB，每帧都按顺序处理，结果可在不同提交之间比较。
+ * <p>
+ * 默认先用合成帧生成一段录制；设备上用 CameraPreviewController.setFrameRecorder 录下的目录可以通过
+ * {@code -Precording=/path/to/dir}（jmh 的 benchmarkParameters）直接回放。
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class ReplayBenchmark {
+
+    private static final int SYNTHETIC_FRAMES = 60;
+
+    @Param({""})
+    public String recording;
+
+    private File directory;
+    private boolean generated;
+    private RecordedFrameSource source;
+    private YuvToArgbConverter converter;
+    private int[] argb;
+
+    @Setup
+    public void setUp() throws Exception {
+        generated = recording.isEmpty();
+        directory = generated ? generateRecording() : new File(recording);
+        source = new RecordedFrameSource(directory, RecordedFrameSource.Speed.MAXIMUM, 1);
+        converter = new YuvToArgbConverter();
+        argb = new int[source.getResolution().getWidth() * source.getResolution().getHeight()];
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (generated) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    @Benchmark
+    public int replay() throws Exception {
+        source.start(frame -> {
+            // 分辨率在录制中途变化时跳过
+            if (frame.getWidth() * frame.getHeight() <= argb.length) {
+                frame.toArgb(converter, argb);
+            }
+            frame.close();
+        });
+        if (!source.awaitFinished(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Replay timed out");
+        }
+        source.stop();
+        return argb[0];
+    }
+
+    private static File generateRecording() throws Exception {
+        File dir = Files.createTempDirectory("replay").toFile();
+        SyntheticFrameSource synthetic = new SyntheticFrameSource(1920, 1080, 60, 4);
+        CountDownLatch done = new CountDownLatch(SYNTHETIC_FRAMES);
+        try (FrameRecorder recorder = new FrameRecorder(dir, FrameRecorder.DEFAULT_SEGMENT_BYTES, SYNTHETIC_FRAMES)) {
+            synthetic.start(frame -> {
+                if (done.getCount() > 0) {
+                    recorder.record(frame);
+                    done.countDown();
+                }
+                frame.close();
+            });
+            done.await();
+            synthetic.stop();
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.camerapreview.benchmark;
+
+import com.example.camerapreview.core.YuvToArgbConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YUV_420_888（NV21 排列，行跨度按 64 字节对齐）转 ARGB 的单帧耗时，分别测量调用线程串行与 ForkJoinPool 并行。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class YuvToArgbBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String frameSize;
+
+    @Param({"serial", "parallel"})
+    public String mode;
+
+    private ForkJoinPool pool;
+    private YuvToArgbConverter converter;
+    private ByteBuffer y;
+    private ByteBuffer u;
+    private ByteBuffer v;
+    private int rowStride;
+    private int width;
+    private int height;
+    private int[] out;
+
+    @Setup
+    public void setUp() {
+        String[] parts = frameSize.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+        rowStride = (width + 63) & ~63;
+        Random random = new Random(42);
+        y = randomBuffer(random, rowStride * height);
+        ByteBuffer vu = randomBuffer(random, rowStride * height / 2);
+        v = vu.duplicate();
+        vu.position(1);
+        u = vu.slice();
+        out = new int[width * height];
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        converter = new YuvToArgbConverter(pool, "parallel".equals(mode) ? 0 : Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] convert() {
+        converter.convert(y, rowStride, u, v, rowStride, 2, width, height, out);
+        return out;
+    }
+
+    private static ByteBuffer randomBuffer(Random random, int size) {
+        // 与 Image 的平面一样使用 direct buffer
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        buffer.put(data);
+        buffer.clear();
+        return buffer;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.camerapreview.camera2;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.util.Size;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+
+import com.example.camerapreview.core.FrameSource;
+import com.example.camerapreview.core.Resolution;
+import com.example.camerapreview.core.YuvFrame;
+
+/**
+ * 由 Camera2 驱动的 {@link FrameSource}。
+ * <p>
+ * 内部是一个 YUV_420_888 的 ImageReader，{@link #getSurface()} 需由调用方加入会话和重复请求。新帧在相机线程上用
+ * acquireLatestImage 取出并包装为 {@link YuvFrame}，关闭 YuvFrame 即关闭对应的 Image。
+ */
+public class Camera2FrameSource implements FrameSource {
+
+    private final ImageReader imageReader;
+    private final Handler cameraHandler;
+
+    public Camera2FrameSource(@NonNull Size size, int maxImages, @NonNull Handler cameraHandler) {
+        this.cameraHandler = cameraHandler;
+        imageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888, maxImages);
+    }
+
+    @NonNull
+    public Surface getSurface() {
+        return imageReader.getSurface();
+    }
+
+    @Override
+    public Resolution getResolution() {
+        return new Resolution(imageReader.getWidth(), imageReader.getHeight());
+    }
+
+    @Override
+    public void start(final Listener listener) {
+        imageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+                // 丢弃队列中更早的帧，只取最新的一帧
+                Image image = reader.acquireLatestImage();
+                if (image != null) {
+                    listener.onFrame(wrap(image));
+                }
+            }
+        }, cameraHandler);
+    }
+
+    @Override
+    public void stop() {
+        imageReader.setOnImageAvailableListener(null, null);
+    }
+
+    /**
+     * 关闭 ImageReader，应在所有已交付的帧关闭之后调用。
+     */
+    public void close() {
+        imageReader.close();
+    }
+
+    private static YuvFrame wrap(final Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        return new YuvFrame(image.getWidth(), image.getHeight(), planes[0].getBuffer(), planes[1].getBuffer(),
+                planes[2].getBuffer(), planes[0].getRowStride(), planes[1].getRowStride(),
+                planes[1].getPixelStride(), image.getTimestamp(), frame -> image.close());
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.camerapreview.camera2;
+
+import android.annotation.SuppressLint;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+
+import com.example.camerapreview.core.MultiCameraManager;
+import com.example.camerapreview.core.Resolution;
+import com.example.camerapreview.core.ResolutionPolicyEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link MultiCameraManager} 的 Camera2 实现。
+ * <p>
+ * 每个相机有自己的 {@link CameraThread}，openCamera、会话及帧回调都在该线程执行，互不阻塞。预览输出为
+ * YUV_420_888 的 ImageReader，取出后立即关闭，只用于统计帧率。
+ */
+public class Camera2MultiCameraBackend implements MultiCameraManager.Backend {
+
+    private static final String TAG = "Camera2MultiCamera";
+    private static final int MAX_IMAGES = 2;
+
+    private final CameraManager cameraManager;
+    private final Map<String, OpenCamera> cameras = new HashMap<>();
+
+    public Camera2MultiCameraBackend(@NonNull CameraManager cameraManager) {
+        this.cameraManager = cameraManager;
+    }
+
+    @Override
+    public List<String> getCameraIds() {
+        try {
+            return Arrays.asList(cameraManager.getCameraIdList());
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<Set<String>> getConcurrentCameraIds() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return null;
+        }
+        try {
+            return new ArrayList<>(cameraManager.getConcurrentCameraIds());
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<ResolutionPolicyEngine.Candidate> getPreviewCandidates(String cameraId) {
+        try {
+            StreamConfigurationMap map = cameraManager.getCameraCharacteristics(cameraId)
+                    .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            if (map == null) {
+                return Collections.emptyList();
+            }
+            List<ResolutionPolicyEngine.Candidate> candidates = new ArrayList<>();
+            for (Size size : map.getOutputSizes(ImageFormat.YUV_420_888)) {
+                candidates.add(new ResolutionPolicyEngine.Candidate(new Resolution(size.getWidth(), size.getHeight()),
+                        map.getOutputMinFrameDuration(ImageFormat.YUV_420_888, size)));
+            }
+            return candidates;
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void open(String cameraId, Resolution size, MultiCameraManager.Callback callback) {
+        OpenCamera camera = new OpenCamera(cameraId, size, callback);
+        synchronized (cameras) {
+            if (cameras.containsKey(cameraId)) {
+                throw new IllegalStateException("Camera " + cameraId + " already open.");
+            }
+            cameras.put(cameraId, camera);
+        }
+        camera.thread.post(camera::open);
+    }
+
+    @Override
+    public void close(String cameraId) {
+        final OpenCamera camera;
+        synchronized (cameras) {
+            camera = cameras.remove(cameraId);
+        }
+        if (camera != null) {
+            camera.thread.post(camera::close);
+        }
+    }
+
+    // 单个相机的资源，除构造外只在其相机线程上访问
+    private class OpenCamera {
+        final String cameraId;
+        final MultiCameraManager.Callback callback;
+        final CameraThread thread;
+        final ImageReader imageReader;
+        CameraDevice device;
+        CameraCaptureSession session;
+        // openCamera 尚未回调，此时退出线程会丢失回调导致相机无法关闭
+        boolean opening = false;
+        boolean closed = false;
+
+        OpenCamera(String cameraId, Resolution size, MultiCameraManager.Callback callback) {
+            this.cameraId = cameraId;
+            this.callback = callback;
+            thread = new CameraThread("Camera-" + cameraId);
+            imageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888,
+                    MAX_IMAGES);
+            imageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+                @Override
+                public void onImageAvailable(ImageReader reader) {
+                    Image image = reader.acquireLatestImage();
+                    if (image != null) {
+                        OpenCamera.this.callback.onFrame(image.getTimestamp());
+                        image.close();
+                    }
+                }
+            }, thread.getHandler());
+        }
+
+        @SuppressLint("MissingPermission")
+        void open() {
+            opening = true;
+            try {
+                cameraManager.openCamera(cameraId, new CameraDevice.StateCallback() {
+                    @Override
+                    public void onOpened(@NonNull CameraDevice camera) {
+                        opening = false;
+                        if (closed) {
+                            camera.close();
+                            thread.quitSafely();
+                            return;
+                        }
+                        device = camera;
+                        createSession();
+                    }
+
+                    @Override
+                    public void onDisconnected(@NonNull CameraDevice camera) {
+                        opening = false;
+                        camera.close();
+                        device = null;
+                        if (closed) {
+                            thread.quitSafely();
+                            return;
+                        }
+                        callback.onError("disconnected");
+                    }
+
+                    @Override
+                    public void onError(@NonNull CameraDevice camera, int error) {
+                        opening = false;
+                        camera.close();
+                        device = null;
+                        if (closed) {
+                            thread.quitSafely();
+                            return;
+                        }
+                        callback.onError("error " + error);
+                    }
+                }, thread.getHandler());
+            } catch (CameraAccessException e) {
+                opening = false;
+                callback.onError(e.getMessage());
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private void createSession() {
+            try {
+                device.createCaptureSession(Collections.singletonList(imageReader.getSurface()),
+                        new CameraCaptureSession.StateCallback() {
+                            @Override
+                            public void onConfigured(@NonNull CameraCaptureSession captureSession) {
+                                if (device == null) {
+                                    return;
+                                }
+                                session = captureSession;
+                                try {
+                                    CaptureRequest.Builder builder =
+                                            device.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+                                    builder.addTarget(imageReader.getSurface());
+                                    session.setRepeatingRequest(builder.build(), null, thread.getHandler());
+                                    callback.onStreaming();
+                                } catch (CameraAccessException e) {
+                                    callback.onError(e.getMessage());
+                                }
+                            }
+
+                            @Override
+                            public void onConfigureFailed(@NonNull CameraCaptureSession captureSession) {
+                                Log.w(TAG, "Camera " + cameraId + " configure failed");
+                                callback.onError("configure failed");
+                            }
+                        }, thread.getHandler());
+            } catch (CameraAccessException e) {
+                callback.onError(e.getMessage());
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (session != null) {
+                session.close();
+                session = null;
+            }
+            if (device != null) {
+                device.close();
+                device = null;
+            }
+            imageReader.close();
+            if (!opening) {
+                thread.quitSafely();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.camerapreview.camera2;
+
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.os.Handler;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+
+import com.example.camerapreview.core.Resolution;
+import com.example.camerapreview.core.ResolutionPolicyEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相机能力缓存。
+ * <p>
+ * 缓存相机 ID 列表、CameraCharacteristics、预览输出尺寸及其最小帧间隔，以及按（相机、View 尺寸、屏幕方向、
+ * 策略标识）选出的预览尺寸，使重复打开相机时不再发起 binder 调用。有新相机接入时通过 {@link CameraManager.AvailabilityCallback} 失效。
+ * <p>
+ * 除 {@link #prewarm()} 与 {@link #release()} 外，所有方法都必须在构造时传入的相机线程上调用。
+ */
+public class CameraCapabilityRegistry {
+
+    private static final String TAG = "CameraCapabilityRegistry";
+    private final CameraManager cameraManager;
+    private final Handler cameraHandler;
+    private final Map<String, CameraCharacteristics> characteristicsCache = new HashMap<>();
+    private final Map<String, Size[]> outputSizesCache = new HashMap<>();
+    private final Map<String, Size[]> formatSizesCache = new HashMap<>();
+    private final Map<String, List<ResolutionPolicyEngine.Candidate>> candidatesCache = new HashMap<>();
+    private final Map<String, ResolutionPolicyEngine.Decision> previewSizeCache = new HashMap<>();
+    private String[] cameraIds;
+    private boolean registered = false;
+
+    private final CameraManager.AvailabilityCallback availabilityCallback = new CameraManager.AvailabilityCallback() {
+        @Override
+        public void onCameraAvailable(@NonNull String cameraId) {
+            // 注册后会对已有相机各回调一次，只有未知的相机（如外接 USB 相机）才需要重新枚举
+            if (cameraIds != null && !Arrays.asList(cameraIds).contains(cameraId)) {
+                Log.i(TAG, "New camera " + cameraId + ", invalidate");
+                invalidate();
+            }
+        }
+    };
+
+    public CameraCapabilityRegistry(@NonNull CameraManager cameraManager, @NonNull Handler cameraHandler) {
+        this.cameraManager = cameraManager;
+        this.cameraHandler = cameraHandler;
+    }
+
+    /**
+     * 在相机线程上预先加载所有相机的参数，可在 onCreate 中调用，无需相机权限。
+     */
+    public void prewarm() {
+        cameraHandler.post(() -> {
+            try {
+                for (String cameraId : getCameraIdList()) {
+                    getOutputSizes(cameraId);
+                }
+            } catch (CameraAccessException e) {
+                Log.w(TAG, "prewarm failed", e);
+            }
+            if (!registered) {
+                cameraManager.registerAvailabilityCallback(availabilityCallback, cameraHandler);
+                registered = true;
+            }
+        });
+    }
+
+    public void release() {
+        cameraHandler.post(() -> {
+            if (registered) {
+                cameraManager.unregisterAvailabilityCallback(availabilityCallback);
+                registered = false;
+            }
+        });
+    }
+
+    @NonNull
+    public String[] getCameraIdList() throws CameraAccessException {
+        if (cameraIds == null) {
+            cameraIds = cameraManager.getCameraIdList();
+        }
+        return cameraIds;
+    }
+
+    @NonNull
+    public CameraCharacteristics getCharacteristics(@NonNull String cameraId) throws CameraAccessException {
+        CameraCharacteristics characteristics = characteristicsCache.get(cameraId);
+        if (characteristics == null) {
+            characteristics = cameraManager.getCameraCharacteristics(cameraId);
+            characteristicsCache.put(cameraId, characteristics);
+        }
+        return characteristics;
+    }
+
+    /**
+     * 相机对 SurfaceTexture 支持的输出尺寸。
+     */
+    @NonNull
+    public Size[] getOutputSizes(@NonNull String cameraId) throws CameraAccessException {
+        Size[] outputSizes = outputSizesCache.get(cameraId);
+        if (outputSizes == null) {
+            StreamConfigurationMap map = getCharacteristics(cameraId)
+                    .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            outputSizes = map.getOutputSizes(SurfaceTexture.class);
+            outputSizesCache.put(cameraId, outputSizes);
+        }
+        return outputSizes;
+    }
+
+    /**
+     * 相机对指定 ImageFormat 支持的输出尺寸，例如 YUV_420_888。
+     */
+    @NonNull
+    public Size[] getOutputSizes(@NonNull String cameraId, int format) throws CameraAccessException {
+        String key = cameraId + '#' + format;
+        Size[] outputSizes = formatSizesCache.get(key);
+        if (outputSizes == null) {
+            StreamConfigurationMap map = getCharacteristics(cameraId)
+                    .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            outputSizes = map.getOutputSizes(format);
+            formatSizesCache.put(key, outputSizes);
+        }
+        return outputSizes;
+    }
+
+    /**
+     * SurfaceTexture 输出尺寸及其最小帧间隔（getOutputMinFrameDuration）。
+     */
+    @NonNull
+    public List<ResolutionPolicyEngine.Candidate> getPreviewCandidates(@NonNull String cameraId)
+            throws CameraAccessException {
+        List<ResolutionPolicyEngine.Candidate> candidates = candidatesCache.get(cameraId);
+        if (candidates == null) {
+            StreamConfigurationMap map = getCharacteristics(cameraId)
+                    .get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            candidates = new ArrayList<>();
+            for (Size size : getOutputSizes(cameraId)) {
+                candidates.add(new ResolutionPolicyEngine.Candidate(new Resolution(size.getWidth(), size.getHeight()),
+                        map.getOutputMinFrameDuration(SurfaceTexture.class, size)));
+            }
+            candidatesCache.put(cameraId, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * 获取预览尺寸，同一（相机、View 尺寸、屏幕方向、策略标识）只计算一次。
+     *
+     * @param policyKey 由调用方给出的策略标识，参数不同的策略必须使用不同的标识；策略替换后需调用
+     *                  {@link #clearPreviewSizes()}
+     */
+    @NonNull
+    public ResolutionPolicyEngine.Decision getPreviewSize(@NonNull String cameraId, int viewWidth, int viewHeight,
+                                                          int orientation, @NonNull String policyKey,
+                                                          @NonNull ResolutionPolicyEngine policy)
+            throws CameraAccessException {
+        String key = cameraId + ':' + viewWidth + 'x' + viewHeight + ':' + orientation + ':' + policyKey;
+        ResolutionPolicyEngine.Decision decision = previewSizeCache.get(key);
+        if (decision == null) {
+            decision = policy.select(getPreviewCandidates(cameraId), viewWidth, viewHeight);
+            previewSizeCache.put(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * 只清空选出的预览尺寸，在替换尺寸策略后调用。
+     */
+    public void clearPreviewSizes() {
+        previewSizeCache.clear();
+    }
+
+    /**
+     * 清空所有缓存，下次查询时重新获取。
+     */
+    public void invalidate() {
+        cameraIds = null;
+        characteristicsCache.clear();
+        outputSizesCache.clear();
+        formatSizesCache.clear();
+        candidatesCache.clear();
+        previewSizeCache.clear();
+    }
+}
@@ -0,0 +1,1117 @@
+package com.example.camerapreview.camera2;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.OutputConfiguration;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.Range;
+import android.util.Size;
+import android.view.Surface;
+import android.view.TextureView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.example.camerapreview.core.AdaptiveQualityController;
+import com.example.camerapreview.core.BindLatencyMetrics;
+import com.example.camerapreview.core.CameraStateMachine;
+import com.example.camerapreview.core.FrameMetrics;
+import com.example.camerapreview.core.FrameRecorder;
+import com.example.camerapreview.core.KeepWarmController;
+import com.example.camerapreview.core.PreviewLatencyEstimator;
+import com.example.camerapreview.core.PreviewProfile;
+import com.example.camerapreview.core.Resolution;
+import com.example.camerapreview.core.ResolutionPolicyEngine;
+import com.example.camerapreview.core.ResolutionStrategies;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Camera2 预览控制器，供 app-Camera2-Matrix 与 app-Camera2-TextureView 共用。
+ * <p>
+ * 相机的打开、会话创建与关闭由 {@link CameraStateMachine} 驱动，所有 Camera2 调用及回调都在 {@link CameraThread}
+ * 上执行；界面相关的结果通过 {@link Listener} 在 UI 线程回调。除特别说明外，公开方法都应在 UI 线程调用。
+ */
+public class CameraPreviewController {
+
+    public interface Listener {
+        /**
+         * 选定预览尺寸、或预览 Surface 就绪后在 UI 线程回调，用于调整 TextureView。
+         */
+        void onPreviewSizeSelected(@NonNull Size previewSize);
+
+        /**
+         * 会话配置失败时在 UI 线程回调。
+         */
+        void onConfigureFailed();
+
+        /**
+         * 相机打开失败（被系统策略禁用、被更高优先级的应用占用或权限被撤销）时在 UI 线程回调。
+         */
+        void onOpenFailed(@NonNull String message);
+    }
+
+    private static final String TAG = "CameraPreviewController";
+    // onStop 后保持相机打开的宽限时间
+    private static final long DEFAULT_KEEP_WARM_GRACE_MS = 5000;
+    // 自适应质量的帧率采样间隔
+    private static final long ADAPTIVE_SAMPLE_MS = 1000;
+    // 非 FULL 设备上零延迟拍照输出的像素上限，即流组合保证中的 PREVIEW 尺寸上限 1080p
+    private static final long ZSL_LIMITED_MAX_PIXELS = 1920L * 1080;
+
+    private final Context context;
+    private final TextureView textureView;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 所有相机操作及回调都在该线程执行
+    private final CameraThread cameraThread = new CameraThread();
+    private final StartupTracer startupTracer = StartupTracer.getInstance();
+    // 传感器曝光到预览帧送显的延迟
+    private final PreviewLatencyEstimator latencyEstimator = new PreviewLatencyEstimator();
+    // 逐帧统计，挂在预览重复请求上
+    private final CaptureMetricsCallback captureMetrics =
+            new CaptureMetricsCallback(new FrameMetrics(), latencyEstimator);
+    // 暂停后恢复与重新打开相机各自到首帧的耗时
+    private final BindLatencyMetrics bindLatency = new BindLatencyMetrics();
+    private final CameraManager cameraManager;
+    // 相机参数缓存，避免每次打开相机都重新查询
+    private final CameraCapabilityRegistry cameraRegistry;
+    private final CameraStateMachine stateMachine;
+    private final KeepWarmController keepWarmController;
+    // 获得权限后立即打开相机，不等待 TextureView 的 Surface（需要 API 26）
+    private boolean parallelStartup = true;
+    private volatile ResolutionPolicyEngine resolutionPolicy = ResolutionPolicyEngine.createDefault();
+    private volatile ResolutionPolicyEngine.Decision previewDecision;
+    private volatile PreviewProfile previewProfile = PreviewProfile.BALANCED;
+    private volatile Range<Integer> previewFpsRange;
+    // 可选的 YUV 分析输出，下次创建会话时生效
+    private volatile ImageAnalysisStream.Analyzer imageAnalyzer;
+    private volatile Size analysisTargetSize = new Size(640, 480);
+    private volatile FrameRecorder frameRecorder;
+    private ExecutorService analysisExecutor;
+    // 零延迟拍照输出，下次创建会话时生效
+    private volatile boolean zslEnabled = false;
+    private ExecutorService zslExecutor;
+    // 温度与负载自适应，为 null 时不启用；仅在相机线程写入
+    private volatile AdaptiveQualityController adaptiveQuality;
+
+    // UI 线程写入，相机线程读取
+    private volatile int viewportWidth;
+    private volatile int viewportHeight;
+    private volatile int displayOrientation;
+    // start() 后为 true，stop()、pause()、unbind() 后为 false，只在预览期间采样帧率
+    private volatile boolean previewRequested = false;
+    // 相机线程在回调 onPreviewSizeSelected 前写入，UI 线程读取
+    private volatile int sensorOrientation = 90;
+    private volatile boolean frontFacing = false;
+    // 传感器时间戳是否为 elapsedRealtimeNanos 时钟
+    private volatile boolean realtimeTimestamps = false;
+    // release 后等相机关闭完成再退出相机线程，否则打开中的设备收不到 onOpened 而泄漏
+    private volatile boolean releasePending = false;
+
+    // 以下字段仅在相机线程访问
+    private CameraDevice mCameraDevice;
+    private String cameraId;
+    private ImageAnalysisStream analysisStream;
+    private ZslCaptureStream zslStream;
+    private Size imageDimension;
+    private CaptureRequest.Builder captureRequestBuilder;
+    // 缓存构建好的重复请求，恢复预览时无需重新 build；修改 builder 后需置空
+    private CaptureRequest repeatingRequest;
+    private CameraCaptureSession cameraCaptureSession;
+    private Surface surface;
+    // 重建会话时被替换的旧输出，旧会话关闭前仍在使用，等新会话配置完成后再释放
+    private Surface retiredSurface;
+    private ImageAnalysisStream retiredAnalysisStream;
+    private ZslCaptureStream retiredZslStream;
+    private boolean previewPaused = false;
+    // 尚未添加 Surface 的延迟输出配置
+    private OutputConfiguration deferredOutput;
+    // 自适应级别限制的预览尺寸策略及像素上限，不限制时为 null 与 Long.MAX_VALUE
+    private ResolutionPolicyEngine adaptivePolicy;
+    private long adaptiveMaxPixels = Long.MAX_VALUE;
+    // 按像素上限缓存的策略，每个级别只构建一次，替换尺寸策略后清空
+    private final Map<Long, ResolutionPolicyEngine> adaptivePolicies = new HashMap<>();
+    // 当前会话是否按降级配置创建（不含零延迟拍照输出、分析帧缩小）
+    private boolean sessionReduced = false;
+    private boolean adaptiveSampling = false;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    // 上次采样时的帧数与时间，-1 表示需要重新建立基准
+    private long adaptiveFrameCount = -1;
+    private long adaptiveSampleMillis;
+    private final Runnable adaptiveSampler = new Runnable() {
+        @Override
+        public void run() {
+            sampleAdaptiveQuality();
+        }
+    };
+
+    public CameraPreviewController(@NonNull Context context, @NonNull TextureView textureView,
+                                   @NonNull Listener listener) {
+        this.context = context;
+        this.textureView = textureView;
+        this.listener = listener;
+        cameraManager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        cameraRegistry = new CameraCapabilityRegistry(cameraManager, cameraThread.getHandler());
+        stateMachine = new CameraStateMachine(new CameraStateMachine.Device() {
+            @Override
+            public void open() {
+                startupTracer.begin();
+                // 查询相机参数及打开相机均在相机线程执行，避免阻塞 UI 线程
+                cameraThread.post(CameraPreviewController.this::openCameraOnCameraThread);
+            }
+
+            @Override
+            public void configure() {
+                cameraThread.post(CameraPreviewController.this::createCameraPreviewSession);
+            }
+
+            @Override
+            public void close() {
+                startupTracer.cancel();
+                // 关闭相机在相机线程执行
+                cameraThread.post(CameraPreviewController.this::closeCamera);
+            }
+        });
+        keepWarmController = new KeepWarmController(new KeepWarmController.Camera() {
+            @Override
+            public void open() {
+                requestOpen();
+            }
+
+            @Override
+            public void pause() {
+                pausePreview();
+            }
+
+            @Override
+            public void resume() {
+                resumePreview();
+            }
+
+            @Override
+            public void close() {
+                bindLatency.cancel();
+                stateMachine.requestClose();
+            }
+        }, new KeepWarmController.Scheduler() {
+            @Override
+            public void schedule(Runnable task, long delayMillis) {
+                cameraThread.postDelayed(task, delayMillis);
+            }
+
+            @Override
+            public void cancel(Runnable task) {
+                cameraThread.removeCallbacks(task);
+            }
+        }, DEFAULT_KEEP_WARM_GRACE_MS);
+    }
+
+    /**
+     * 设置 onStop 后保持相机打开的宽限时间，设为 0 则每次 {@link #stop()} 都关闭相机。
+     */
+    public void setKeepWarmGraceMillis(long graceMillis) {
+        keepWarmController.setGraceMillis(graceMillis);
+    }
+
+    public void setParallelStartup(boolean parallelStartup) {
+        this.parallelStartup = parallelStartup;
+    }
+
+    /**
+     * 设置预览尺寸选择策略，下次打开相机时生效。
+     */
+    public void setResolutionPolicy(@NonNull ResolutionPolicyEngine policy) {
+        resolutionPolicy = policy;
+        cameraThread.post(() -> {
+            // 缓存按策略标识区分，不识别策略实例，替换后丢弃旧策略选出的尺寸；降级策略随目标帧率重建
+            cameraRegistry.clearPreviewSizes();
+            adaptivePolicies.clear();
+            if (adaptivePolicy != null) {
+                adaptivePolicy = adaptivePolicyFor(adaptiveMaxPixels);
+            }
+        });
+    }
+
+    /**
+     * 最近一次选择的预览尺寸及所用策略，尚未打开过相机时为 null。
+     */
+    @Nullable
+    public ResolutionPolicyEngine.Decision getPreviewDecision() {
+        return previewDecision;
+    }
+
+    /**
+     * 切换预览性能档位。预览中只替换一次重复请求，不重建会话。
+     */
+    public void setPreviewProfile(@NonNull PreviewProfile profile) {
+        previewProfile = profile;
+        cameraThread.post(() -> {
+            if (captureRequestBuilder == null) {
+                // 创建会话时应用
+                return;
+            }
+            applyPreviewProfile();
+            captureMetrics.getMetrics().markDiscontinuity();
+            startRepeating();
+        });
+    }
+
+    @NonNull
+    public PreviewProfile getPreviewProfile() {
+        return previewProfile;
+    }
+
+    /**
+     * 按温控状态（API 29+）和实际帧率自动降低或恢复预览质量：先切换到低功耗档位，只替换重复请求；仍不够时限制
+     * 预览尺寸，在已打开的相机上重建会话，同时去掉零延迟拍照输出、把分析帧缩小到预览上限的四分之一以内。
+     * 帧率只在 {@link #start()} 之后、{@link #stop()} / {@link #pause()} 之前采样。关闭后恢复
+     * {@link #setPreviewProfile} 设置的档位，预览尺寸与其他输出在下次打开相机时恢复。
+     */
+    public void setAdaptiveQuality(boolean enabled) {
+        cameraThread.post(() -> {
+            if (enabled == (adaptiveQuality != null)) {
+                return;
+            }
+            if (enabled) {
+                adaptiveQuality = new AdaptiveQualityController();
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    registerThermalListener();
+                }
+                startAdaptiveSampling();
+            } else {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    unregisterThermalListener();
+                }
+                stopAdaptiveSampling();
+                adaptiveQuality = null;
+                adaptivePolicy = null;
+                adaptiveMaxPixels = Long.MAX_VALUE;
+                if (captureRequestBuilder != null) {
+                    applyPreviewProfile();
+                    startRepeating();
+                }
+            }
+        });
+    }
+
+    /**
+     * 设置 YUV_420_888 分析器，在下次创建会话时加入分析输出，传入 null 则不再输出分析帧。
+     * 分析器在独立线程运行，处理不过来时只会丢帧，不影响预览。
+     */
+    public void setImageAnalyzer(@Nullable ImageAnalysisStream.Analyzer analyzer) {
+        if (analyzer != null && analysisExecutor == null) {
+            analysisExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ImageAnalysis"));
+        }
+        imageAnalyzer = analyzer;
+    }
+
+    /**
+     * 把分析帧录制到 {@link FrameRecorder}，在下次创建会话时生效，传入 null 则停止录制。录制器由调用方关闭，
+     * 录下的文件可在 JVM 上用 RecordedFrameSource 回放。
+     */
+    public void setFrameRecorder(@Nullable FrameRecorder recorder) {
+        frameRecorder = recorder;
+    }
+
+    /**
+     * 分析帧的目标尺寸，实际选取不小于该像素数的最小输出尺寸。
+     */
+    public void setAnalysisTargetSize(@NonNull Size size) {
+        analysisTargetSize = size;
+    }
+
+    /**
+     * 开启零延迟拍照，在下次创建会话时加入 YUV 输出，重复请求的每一帧都会写入该输出。预览加最大尺寸 YUV 的流组合
+     * 只在 FULL 及以上级别保证：FULL 设备使用最大 YUV 尺寸；LIMITED、LEGACY 等级别只保证预览加预览尺寸的 YUV，
+     * 输出限制在 1080p 以内，且同时开启分析输出时不加入零延迟拍照输出。
+     */
+    public void setZslEnabled(boolean enabled) {
+        if (enabled && zslExecutor == null) {
+            zslExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ZslEncoder"));
+        }
+        zslEnabled = enabled;
+    }
+
+    /**
+     * 从最近的预览帧中选一帧编码为 JPEG，不创建新会话也不等待 3A，结果在后台线程回调。
+     * 未开启零延迟拍照或会话尚未就绪时回调 onError。
+     */
+    public void takeZslPicture(@NonNull ZslCaptureStream.Callback callback) {
+        cameraThread.post(() -> {
+            if (zslStream == null || cameraCaptureSession == null) {
+                callback.onError("ZSL not ready");
+                return;
+            }
+            zslStream.takePicture(callback);
+        });
+    }
+
+    /**
+     * 在相机线程预先加载相机参数，可在 onCreate 中调用，无需相机权限。
+     */
+    public void prewarm() {
+        cameraRegistry.prewarm();
+    }
+
+    /**
+     * 需要预览时调用：宽限期内恢复已有会话，否则打开相机。
+     */
+    public void start() {
+        previewRequested = true;
+        cameraThread.post(this::startAdaptiveSampling);
+        if (keepWarmController.isOpen() && !stateMachine.isOpenRequested()) {
+            // 之前因缺少权限或 Surface 未就绪而未能打开，或保温期间相机出错已关闭
+            keepWarmController.reopen();
+        } else {
+            keepWarmController.start();
+        }
+    }
+
+    /**
+     * 界面不可见时调用：暂停预览，宽限期内回到前台无需重新打开相机。
+     */
+    public void stop() {
+        stopPreviewSampling();
+        keepWarmController.stop();
+    }
+
+    /**
+     * 轻量解绑：只停止重复请求，保留相机设备、会话和已构建的请求，{@link #start()} 时一次
+     * setRepeatingRequest 即可恢复。相机一直保持打开，直到 {@link #start()}、{@link #unbind()} 或
+     * {@link #stop()} 后宽限期到期。
+     */
+    public void pause() {
+        stopPreviewSampling();
+        keepWarmController.pause();
+    }
+
+    /**
+     * 立即关闭相机。
+     */
+    public void unbind() {
+        stopPreviewSampling();
+        keepWarmController.release();
+    }
+
+    /**
+     * 关闭相机并退出相机线程，在 onDestroy 中调用。
+     */
+    public void release() {
+        setAdaptiveQuality(false);
+        keepWarmController.release();
+        cameraRegistry.release();
+        final ExecutorService executor = analysisExecutor;
+        if (executor != null) {
+            // 在相机线程关闭分析输出之后再停止分析线程
+            cameraThread.post(executor::shutdown);
+        }
+        final ExecutorService encoder = zslExecutor;
+        if (encoder != null) {
+            // 已提交的编码与 ImageReader 关闭任务执行完后退出
+            cameraThread.post(encoder::shutdown);
+        }
+        // 相机关闭完成后退出相机线程；打开中时等 onOpened 到达、关闭设备之后再退出
+        releasePending = true;
+        cameraThread.post(this::quitCameraThreadIfClosed);
+    }
+
+    public boolean isBound() {
+        return stateMachine.isOpenRequested();
+    }
+
+    @NonNull
+    public CameraStateMachine.State getState() {
+        return stateMachine.getState();
+    }
+
+    @NonNull
+    public CaptureMetricsCallback getCaptureMetrics() {
+        return captureMetrics;
+    }
+
+    public void onSurfaceTextureAvailable(int width, int height) {
+        viewportWidth = width;
+        viewportHeight = height;
+        if (stateMachine.isOpenRequested()) {
+            // 相机已在 Surface 就绪前打开
+            cameraThread.post(this::attachPreviewSurface);
+        } else {
+            start();
+        }
+    }
+
+    public void onSurfaceTextureUpdated() {
+        startupTracer.mark(StartupTracer.Stage.FIRST_FRAME);
+        bindLatency.onFrame(System.nanoTime());
+        SurfaceTexture surfaceTexture = textureView.getSurfaceTexture();
+        if (surfaceTexture != null) {
+            // REALTIME 时间戳与 elapsedRealtimeNanos 同源，UNKNOWN 时多数设备为单调时钟
+            long now = realtimeTimestamps ? SystemClock.elapsedRealtimeNanos() : System.nanoTime();
+            latencyEstimator.onFrameQueued(surfaceTexture.getTimestamp(), now);
+        }
+    }
+
+    @NonNull
+    public PreviewLatencyEstimator getLatencyEstimator() {
+        return latencyEstimator;
+    }
+
+    /**
+     * 当前相机的传感器方向，在 {@link Listener#onPreviewSizeSelected(Size)} 回调时已更新。
+     */
+    public int getSensorOrientation() {
+        return sensorOrientation;
+    }
+
+    public boolean isFrontFacing() {
+        return frontFacing;
+    }
+
+    /**
+     * 暂停后恢复（RESUME）与重新打开相机（REBIND）到首帧的耗时。
+     */
+    @NonNull
+    public BindLatencyMetrics getBindLatency() {
+        return bindLatency;
+    }
+
+    public void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.println("Camera state: " + stateMachine.getState()
+                + " opens=" + stateMachine.getOpenCount() + " closes=" + stateMachine.getCloseCount());
+        writer.print(prefix);
+        writer.println("Camera startup:");
+        writer.print(startupTracer.dump());
+        writer.print(prefix);
+        writer.println("Capture metrics: " + captureMetrics.getMetrics().snapshot());
+        writer.print(prefix);
+        writer.println("Preview " + latencyEstimator.snapshot());
+        writer.print(prefix);
+        writer.println("Keep warm: opens=" + keepWarmController.getOpenCount()
+                + " resumes=" + keepWarmController.getResumeCount());
+        writer.print(prefix);
+        writer.println("Bind latency: " + bindLatency);
+        final ImageAnalysisStream stream = analysisStream;
+        if (stream != null) {
+            writer.print(prefix);
+            writer.println("Image analysis: size=" + stream.getSize() + " delivered=" + stream.getDeliveredCount()
+                    + " dropped=" + stream.getDroppedCount() + " failed=" + stream.getFailedCount());
+        }
+        final ZslCaptureStream zsl = zslStream;
+        if (zsl != null) {
+            writer.print(prefix);
+            writer.println("ZSL: size=" + zsl.getSize() + " captures=" + zsl.getCaptureCount()
+                    + " evicted=" + zsl.getEvictedCount() + " listener max=" + zsl.getMaxListenerNs() / 1000 + "us");
+        }
+        writer.print(prefix);
+        writer.println("Preview profile: " + effectivePreviewProfile() + " fps=" + previewFpsRange);
+        final AdaptiveQualityController adaptive = adaptiveQuality;
+        if (adaptive != null) {
+            writer.print(prefix);
+            writer.println("Adaptive quality: level=" + adaptive.getLevel() + " changes=" + adaptive.getChangeCount());
+        }
+        final ResolutionPolicyEngine.Decision decision = previewDecision;
+        if (decision != null) {
+            writer.print(prefix);
+            writer.println("Preview size: " + decision);
+        }
+    }
+
+    private boolean canDeferSurface() {
+        return parallelStartup && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
+    }
+
+    private void requestOpen() {
+        if (context.checkSelfPermission(Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        if (!textureView.isAvailable()) {
+            if (!canDeferSurface()) {
+                // 等待 onSurfaceTextureAvailable
+                return;
+            }
+            // TextureView 充满屏幕，按屏幕尺寸估计预览区域
+            DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+            viewportWidth = displayMetrics.widthPixels;
+            viewportHeight = displayMetrics.heightPixels;
+        }
+        displayOrientation = context.getResources().getConfiguration().orientation;
+        bindLatency.begin(BindLatencyMetrics.Kind.REBIND, System.nanoTime());
+        stateMachine.requestOpen();
+    }
+
+    private void pausePreview() {
+        bindLatency.cancel();
+        cameraThread.post(() -> {
+            previewPaused = true;
+            if (cameraCaptureSession != null) {
+                try {
+                    cameraCaptureSession.stopRepeating();
+                } catch (CameraAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    private void resumePreview() {
+        bindLatency.begin(BindLatencyMetrics.Kind.RESUME, System.nanoTime());
+        cameraThread.post(() -> {
+            previewPaused = false;
+            captureMetrics.getMetrics().markDiscontinuity();
+            startRepeating();
+        });
+    }
+
+    private void closeCamera() {
+        if (captureRequestBuilder != null) {
+            captureRequestBuilder.removeTarget(surface);
+            captureRequestBuilder = null;
+            repeatingRequest = null;
+        }
+        if (surface != null) {
+            surface.release();
+            surface = null;
+        }
+        if (cameraCaptureSession != null) {
+            try {
+                cameraCaptureSession.stopRepeating();
+                cameraCaptureSession.abortCaptures();
+            } catch (CameraAccessException | IllegalStateException e) {
+                // 相机已断开或出错时会话不可用，直接关闭设备
+                Log.w(TAG, "stop session failed", e);
+            }
+            cameraCaptureSession = null;
+        }
+        previewPaused = false;
+        deferredOutput = null;
+        if (mCameraDevice != null) {
+            // 关闭完成后由 onClosed 通知状态机
+            mCameraDevice.close();
+            mCameraDevice = null;
+        } else {
+            stateMachine.onClosed();
+        }
+        closeExtraOutputs();
+        releaseRetiredOutputs();
+        quitCameraThreadIfClosed();
+    }
+
+    // 关闭分析与零延迟拍照输出，需在会话关闭后调用
+    private void closeExtraOutputs() {
+        if (analysisStream != null) {
+            analysisStream.close();
+            analysisStream = null;
+        }
+        if (zslStream != null) {
+            captureMetrics.setResultListener(null);
+            zslStream.close();
+            zslStream = null;
+        }
+    }
+
+    // 释放重建会话时替换下来的旧输出，需在旧会话关闭后调用
+    private void releaseRetiredOutputs() {
+        if (retiredSurface != null) {
+            retiredSurface.release();
+            retiredSurface = null;
+        }
+        if (retiredAnalysisStream != null) {
+            retiredAnalysisStream.close();
+            retiredAnalysisStream = null;
+        }
+        if (retiredZslStream != null) {
+            retiredZslStream.close();
+            retiredZslStream = null;
+        }
+    }
+
+    // 相机状态监听
+    private final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
+        @Override
+        public void onOpened(@NonNull CameraDevice camera) {
+            // 相机打开时执行
+            Log.i(TAG, "onOpened");
+            startupTracer.mark(StartupTracer.Stage.DEVICE_OPENED);
+            mCameraDevice = camera;
+            // 由状态机决定创建预览会话还是关闭（打开过程中已被解绑）
+            stateMachine.onOpened();
+        }
+
+        @Override
+        public void onDisconnected(@NonNull CameraDevice camera) {
+            // 相机断开
+            Log.w(TAG, "onDisconnected");
+            mCameraDevice = camera;
+            stateMachine.onError();
+        }
+
+        @Override
+        public void onError(@NonNull CameraDevice camera, int error) {
+            Log.e(TAG, "onError " + error);
+            mCameraDevice = camera;
+            stateMachine.onError();
+        }
+
+        @Override
+        public void onClosed(@NonNull CameraDevice camera) {
+            stateMachine.onClosed();
+            quitCameraThreadIfClosed();
+        }
+    };
+
+    // 仅在相机线程调用
+    private void quitCameraThreadIfClosed() {
+        if (releasePending && stateMachine.getState() == CameraStateMachine.State.CLOSED) {
+            releasePending = false;
+            cameraThread.quitSafely();
+        }
+    }
+
+    @SuppressLint("MissingPermission")
+    private void openCameraOnCameraThread() {
+        try {
+            // 获取第一个相机 ID
+            cameraId = cameraRegistry.getCameraIdList()[0];
+            // 按策略选择预览尺寸，结果按 View 尺寸、屏幕方向和策略缓存
+            ResolutionPolicyEngine.Decision decision = cameraRegistry.getPreviewSize(cameraId, viewportWidth,
+                    viewportHeight, displayOrientation, effectiveResolutionPolicyKey(), effectiveResolutionPolicy());
+            Log.i(TAG, "Preview size " + decision + " for view " + viewportWidth + "x" + viewportHeight);
+            previewDecision = decision;
+            CameraCharacteristics characteristics = cameraRegistry.getCharacteristics(cameraId);
+            Integer orientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+            sensorOrientation = orientation != null ? orientation : 90;
+            Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
+            frontFacing = facing != null && facing == CameraCharacteristics.LENS_FACING_FRONT;
+            Integer timestampSource = characteristics.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+            realtimeTimestamps = timestampSource != null
+                    && timestampSource == CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
+            latencyEstimator.setClockVerified(realtimeTimestamps);
+            Resolution size = decision.getSize();
+            imageDimension = new Size(size.getWidth(), size.getHeight());
+            final Size previewSize = imageDimension;
+            mainHandler.post(() -> listener.onPreviewSizeSelected(previewSize));
+
+            cameraManager.openCamera(cameraId, stateCallback, cameraThread.getHandler());
+        } catch (CameraAccessException | SecurityException e) {
+            // 相机被禁用、被占用或权限被撤销都可以恢复，不在相机线程上抛出；相机可能已被移除，下次重新查询
+            Log.e(TAG, "open camera failed", e);
+            cameraRegistry.invalidate();
+            stateMachine.onOpenFailed();
+            final String message = String.valueOf(e.getMessage());
+            mainHandler.post(() -> listener.onOpenFailed(message));
+            quitCameraThreadIfClosed();
+        }
+    }
+
+    private void createCameraPreviewSession() {
+        if (mCameraDevice == null) {
+            return;
+        }
+        try {
+            // 预览请求
+            captureRequestBuilder = mCameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+            repeatingRequest = null;
+            // 自动聚焦
+            captureRequestBuilder.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+            // 帧率范围及降噪、锐化等处理模式
+            applyPreviewProfile();
+            // 自适应级别限制预览尺寸时去掉全尺寸零延迟拍照输出、缩小分析帧，只保留预览本身
+            sessionReduced = adaptivePolicy != null;
+            // 可选的 YUV 分析输出，与预览共用重复请求
+            Surface analysisSurface = null;
+            ImageAnalysisStream.Analyzer analyzer = imageAnalyzer;
+            if (analyzer != null) {
+                analysisStream = new ImageAnalysisStream(chooseAnalysisSize(), analyzer, analysisExecutor,
+                        cameraThread.getHandler(), frameRecorder);
+                analysisSurface = analysisStream.getSurface();
+                captureRequestBuilder.addTarget(analysisSurface);
+            }
+            // 可选的零延迟拍照输出，尺寸取决于硬件级别，同样加入重复请求
+            Surface zslSurface = null;
+            if (zslEnabled && sessionReduced) {
+                Log.i(TAG, "ZSL output dropped at adaptive level " + adaptiveQuality.getLevel());
+            }
+            Size zslSize = zslEnabled && !sessionReduced ? chooseZslSize(analysisStream) : null;
+            if (zslSize != null) {
+                zslStream = new ZslCaptureStream(zslSize, zslExecutor, cameraThread.getHandler());
+                zslSurface = zslStream.getSurface();
+                captureRequestBuilder.addTarget(zslSurface);
+                captureMetrics.setResultListener(zslStream::onCaptureResult);
+            }
+            // 会话的状态监听
+            CameraCaptureSession.StateCallback sessionCallback = new CameraCaptureSession.StateCallback() {
+                @Override
+                public void onConfigured(@NonNull CameraCaptureSession session) {
+                    if (mCameraDevice == null) {
+                        return;
+                    }
+
+                    startupTracer.mark(StartupTracer.Stage.SESSION_CONFIGURED);
+                    // 新会话创建时旧会话已关闭，可以释放旧输出
+                    releaseRetiredOutputs();
+                    cameraCaptureSession = session;
+                    stateMachine.onConfigured();
+                    // 新会话的第一帧不与上一会话的最后一帧计算间隔
+                    captureMetrics.getMetrics().markDiscontinuity();
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && deferredOutput != null) {
+                        // Surface 已就绪时完成延迟输出配置，否则等待 attachPreviewSurface
+                        if (surface != null) {
+                            finalizeDeferredOutput();
+                        }
+                        return;
+                    }
+                    startRepeating();
+                }
+
+                @Override
+                public void onConfigureFailed(@NonNull CameraCaptureSession session) {
+                    releaseRetiredOutputs();
+                    stateMachine.onConfigureFailed();
+                    mainHandler.post(listener::onConfigureFailed);
+                }
+            };
+            // 创建会话
+            startupTracer.mark(StartupTracer.Stage.SESSION_CREATE);
+            SurfaceTexture surfaceTexture = textureView.getSurfaceTexture();
+            if (surfaceTexture == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                // Surface 尚未创建：先用延迟输出配置创建会话，使相机 HAL 启动与 View 初始化并行
+                deferredOutput = new OutputConfiguration(imageDimension, SurfaceTexture.class);
+                List<OutputConfiguration> outputs = new ArrayList<>();
+                outputs.add(deferredOutput);
+                if (analysisSurface != null) {
+                    outputs.add(new OutputConfiguration(analysisSurface));
+                }
+                if (zslSurface != null) {
+                    outputs.add(new OutputConfiguration(zslSurface));
+                }
+                mCameraDevice.createCaptureSessionByOutputConfigurations(outputs, sessionCallback, cameraThread.getHandler());
+            } else {
+                assert surfaceTexture != null;
+                surface = createPreviewSurface(surfaceTexture);
+                captureRequestBuilder.addTarget(surface);
+                List<Surface> outputs = new ArrayList<>();
+                outputs.add(surface);
+                if (analysisSurface != null) {
+                    outputs.add(analysisSurface);
+                }
+                if (zslSurface != null) {
+                    outputs.add(zslSurface);
+                }
+                mCameraDevice.createCaptureSession(outputs, sessionCallback, cameraThread.getHandler());
+            }
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // 选取像素数不小于目标尺寸的最小 YUV 输出尺寸，都不满足时取最大的；降级时目标不超过预览上限的四分之一
+    private Size chooseAnalysisSize() throws CameraAccessException {
+        Size[] outputSizes = cameraRegistry.getOutputSizes(cameraId, ImageFormat.YUV_420_888);
+        Size target = analysisTargetSize;
+        long targetPixels = (long) target.getWidth() * target.getHeight();
+        if (sessionReduced) {
+            targetPixels = Math.min(targetPixels, adaptiveMaxPixels / 4);
+        }
+        Size best = null;
+        Size largest = outputSizes[0];
+        for (Size size : outputSizes) {
+            long pixels = (long) size.getWidth() * size.getHeight();
+            if (pixels >= targetPixels && (best == null || pixels < (long) best.getWidth() * best.getHeight())) {
+                best = size;
+            }
+            if (pixels > (long) largest.getWidth() * largest.getHeight()) {
+                largest = size;
+            }
+        }
+        return best != null ? best : largest;
+    }
+
+    // 零延迟拍照使用硬件级别保证能与预览（及分析输出）同时配置的最大 YUV 尺寸，没有保证的组合时返回 null
+    @Nullable
+    private Size chooseZslSize(@Nullable ImageAnalysisStream analysis) throws CameraAccessException {
+        Integer level = cameraRegistry.getCharacteristics(cameraId)
+                .get(CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL);
+        // FULL 保证 PRIV 预览 + YUV 最大尺寸，以及再加一路不超过 VGA 的 YUV；其他级别只保证 PRIV 预览 + YUV 预览尺寸
+        boolean full = level != null && (level == CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL_FULL
+                || level == CameraCharacteristics.INFO_SUPPORTED_HARDWARE_LEVEL_3);
+        boolean withAnalysis = analysis != null;
+        if (withAnalysis && full
+                && (long) analysis.getSize().getWidth() * analysis.getSize().getHeight() > 640L * 480) {
+            Log.w(TAG, "ZSL disabled: analysis " + analysis.getSize() + " is larger than VGA");
+            return null;
+        }
+        if (!full && withAnalysis) {
+            Log.w(TAG, "ZSL disabled: hardware level " + level + " does not guarantee preview + analysis + ZSL");
+            return null;
+        }
+        long maxPixels = full ? Long.MAX_VALUE : ZSL_LIMITED_MAX_PIXELS;
+        Size largest = null;
+        for (Size size : cameraRegistry.getOutputSizes(cameraId, ImageFormat.YUV_420_888)) {
+            long pixels = (long) size.getWidth() * size.getHeight();
+            if (pixels <= maxPixels
+                    && (largest == null || pixels > (long) largest.getWidth() * largest.getHeight())) {
+                largest = size;
+            }
+        }
+        if (!full) {
+            Log.i(TAG, "ZSL capped to " + largest + " at hardware level " + level);
+        }
+        return largest;
+    }
+
+    private Surface createPreviewSurface(SurfaceTexture surfaceTexture) {
+        surfaceTexture.setDefaultBufferSize(imageDimension.getWidth(), imageDimension.getHeight());
+        // 预览的输出画面
+        return new Surface(surfaceTexture);
+    }
+
+    // Surface 就绪后在相机线程调用，把预览 Surface 补充到延迟输出配置中
+    private void attachPreviewSurface() {
+        if (imageDimension != null) {
+            // 按 View 的实际尺寸更新界面
+            final Size previewSize = imageDimension;
+            mainHandler.post(() -> listener.onPreviewSizeSelected(previewSize));
+        }
+        if (deferredOutput == null || surface != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        SurfaceTexture surfaceTexture = textureView.getSurfaceTexture();
+        if (surfaceTexture == null) {
+            return;
+        }
+        surface = createPreviewSurface(surfaceTexture);
+        captureRequestBuilder.addTarget(surface);
+        repeatingRequest = null;
+        deferredOutput.addSurface(surface);
+        if (cameraCaptureSession != null) {
+            finalizeDeferredOutput();
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private void finalizeDeferredOutput() {
+        try {
+            cameraCaptureSession.finalizeOutputConfigurations(Collections.singletonList(deferredOutput));
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+        deferredOutput = null;
+        startRepeating();
+    }
+
+    // 仅在相机线程调用
+    private void applyPreviewProfile() {
+        PreviewProfile profile = effectivePreviewProfile();
+        try {
+            previewFpsRange = PreviewProfiles.apply(captureRequestBuilder, cameraRegistry.getCharacteristics(cameraId),
+                    profile);
+            repeatingRequest = null;
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+        Log.i(TAG, "Preview profile " + profile + " fps=" + previewFpsRange);
+    }
+
+    // 自适应降级时使用该级别的档位，否则使用 setPreviewProfile 设置的档位
+    private PreviewProfile effectivePreviewProfile() {
+        AdaptiveQualityController adaptive = adaptiveQuality;
+        if (adaptive == null || adaptive.getLevelIndex() == 0) {
+            return previewProfile;
+        }
+        return adaptive.getLevel().getProfile();
+    }
+
+    private ResolutionPolicyEngine effectiveResolutionPolicy() {
+        return adaptivePolicy != null ? adaptivePolicy : resolutionPolicy;
+    }
+
+    private String effectiveResolutionPolicyKey() {
+        return adaptivePolicy != null ? "pixel-budget:" + adaptiveMaxPixels : "default";
+    }
+
+    // 仅在相机线程调用
+    private ResolutionPolicyEngine adaptivePolicyFor(long maxPixels) {
+        ResolutionPolicyEngine policy = adaptivePolicies.get(maxPixels);
+        if (policy == null) {
+            int targetFps = resolutionPolicy.getTargetFps();
+            policy = new ResolutionPolicyEngine(targetFps, ResolutionStrategies.pixelRateBudget(maxPixels * targetFps),
+                    ResolutionStrategies.smallest());
+            adaptivePolicies.put(maxPixels, policy);
+        }
+        return policy;
+    }
+
+    private void stopPreviewSampling() {
+        previewRequested = false;
+        cameraThread.post(this::stopAdaptiveSampling);
+    }
+
+    // 仅在相机线程调用，预览未开始或未开启自适应质量时不采样
+    private void startAdaptiveSampling() {
+        if (adaptiveQuality == null || !previewRequested || adaptiveSampling) {
+            return;
+        }
+        adaptiveSampling = true;
+        adaptiveFrameCount = -1;
+        cameraThread.postDelayed(adaptiveSampler, ADAPTIVE_SAMPLE_MS);
+    }
+
+    private void stopAdaptiveSampling() {
+        adaptiveSampling = false;
+        cameraThread.removeCallbacks(adaptiveSampler);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private void registerThermalListener() {
+        PowerManager powerManager = context.getSystemService(PowerManager.class);
+        thermalListener = status -> onAdaptiveAction(
+                adaptiveQuality != null ? adaptiveQuality.onThermalStatus(status, SystemClock.uptimeMillis()) : null);
+        powerManager.addThermalStatusListener(cameraThread::post, thermalListener);
+        onAdaptiveAction(adaptiveQuality.onThermalStatus(powerManager.getCurrentThermalStatus(),
+                SystemClock.uptimeMillis()));
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private void unregisterThermalListener() {
+        if (thermalListener != null) {
+            context.getSystemService(PowerManager.class).removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    // 每秒按两次采样间的帧数计算实际帧率，不受 FrameMetrics 统计窗口的滞后影响
+    private void sampleAdaptiveQuality() {
+        AdaptiveQualityController adaptive = adaptiveQuality;
+        if (adaptive == null || !adaptiveSampling) {
+            return;
+        }
+        cameraThread.postDelayed(adaptiveSampler, ADAPTIVE_SAMPLE_MS);
+        Range<Integer> fpsRange = previewFpsRange;
+        long now = SystemClock.uptimeMillis();
+        long frameCount = captureMetrics.getMetrics().snapshot().getFrameCount();
+        if (cameraCaptureSession == null || previewPaused || fpsRange == null || adaptiveFrameCount < 0) {
+            adaptiveFrameCount = cameraCaptureSession == null || previewPaused ? -1 : frameCount;
+            adaptiveSampleMillis = now;
+            return;
+        }
+        double fps = (frameCount - adaptiveFrameCount) * 1000.0 / Math.max(1, now - adaptiveSampleMillis);
+        adaptiveFrameCount = frameCount;
+        adaptiveSampleMillis = now;
+        onAdaptiveAction(adaptive.onFrameStats(fps, 0, fpsRange.getLower(), now));
+    }
+
+    private void onAdaptiveAction(@Nullable AdaptiveQualityController.Action action) {
+        AdaptiveQualityController adaptive = adaptiveQuality;
+        if (adaptive == null || action == null || action == AdaptiveQualityController.Action.NONE) {
+            return;
+        }
+        AdaptiveQualityController.Level level = adaptive.getLevel();
+        Log.i(TAG, "Adaptive quality " + level + " " + action);
+        long maxPixels = level.getMaxPreviewPixels();
+        if (action == AdaptiveQualityController.Action.RECONFIGURE_SESSION) {
+            adaptivePolicy = maxPixels == Long.MAX_VALUE ? null : adaptivePolicyFor(maxPixels);
+            adaptiveMaxPixels = maxPixels;
+        }
+        // 切换后的第一次采样只建立基准
+        adaptiveFrameCount = -1;
+        if (captureRequestBuilder == null) {
+            // 下次创建会话或打开相机时生效
+            return;
+        }
+        if (action == AdaptiveQualityController.Action.RECONFIGURE_SESSION) {
+            reconfigurePreviewSize();
+        } else {
+            applyPreviewProfile();
+            captureMetrics.getMetrics().markDiscontinuity();
+            startRepeating();
+        }
+    }
+
+    // 在已打开的相机上按新的尺寸策略重建会话，不关闭相机设备
+    private void reconfigurePreviewSize() {
+        ResolutionPolicyEngine.Decision decision;
+        try {
+            decision = cameraRegistry.getPreviewSize(cameraId, viewportWidth, viewportHeight, displayOrientation,
+                    effectiveResolutionPolicyKey(), effectiveResolutionPolicy());
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+        Resolution size = decision.getSize();
+        boolean sameSize = size.getWidth() == imageDimension.getWidth() && size.getHeight() == imageDimension.getHeight();
+        // 预览尺寸不变时，只要零延迟拍照或分析输出需要随级别去掉或恢复，也要重建会话
+        boolean extraOutputsChange = sessionReduced != (adaptivePolicy != null) && (zslEnabled || imageAnalyzer != null);
+        if (surface == null || cameraCaptureSession == null || (sameSize && !extraOutputsChange)) {
+            // 尺寸与输出都不变或会话尚未就绪，只更新请求
+            applyPreviewProfile();
+            startRepeating();
+            return;
+        }
+        Log.i(TAG, "Reconfigure preview " + imageDimension + " -> " + decision);
+        previewDecision = decision;
+        imageDimension = new Size(size.getWidth(), size.getHeight());
+        try {
+            cameraCaptureSession.stopRepeating();
+            cameraCaptureSession.abortCaptures();
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.w(TAG, "stop session failed", e);
+        }
+        // 关闭是异步的，旧的 Surface 与额外输出留到新会话配置完成后释放
+        cameraCaptureSession.close();
+        cameraCaptureSession = null;
+        captureRequestBuilder = null;
+        repeatingRequest = null;
+        releaseRetiredOutputs();
+        retiredSurface = surface;
+        surface = null;
+        retiredAnalysisStream = analysisStream;
+        analysisStream = null;
+        if (zslStream != null) {
+            captureMetrics.setResultListener(null);
+        }
+        retiredZslStream = zslStream;
+        zslStream = null;
+        final Size previewSize = imageDimension;
+        mainHandler.post(() -> listener.onPreviewSizeSelected(previewSize));
+        createCameraPreviewSession();
+    }
+
+    private void startRepeating() {
+        if (cameraCaptureSession == null || surface == null || previewPaused) {
+            return;
+        }
+        try {
+            if (repeatingRequest == null) {
+                repeatingRequest = captureRequestBuilder.build();
+            }
+            cameraCaptureSession.setRepeatingRequest(repeatingRequest, captureMetrics, cameraThread.getHandler());
+        } catch (CameraAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.camerapreview.camera2;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 相机专用线程。
+ * <p>
+ * 所有 Camera2 调用（openCamera、createCaptureSession、setRepeatingRequest 等）及其回调都在该线程执行，
+ * 避免与 UI 线程的布局、输入事件竞争。需要更新界面时由调用方自行切回主线程。
+ */
+public class CameraThread {
+
+    private static final String TAG = "CameraThread";
+    private final String name;
+    private HandlerThread handlerThread;
+    private Handler handler;
+
+    public CameraThread() {
+        this(TAG);
+    }
+
+    public CameraThread(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * 获取相机线程的 Handler，线程未启动时自动启动。
+     */
+    @NonNull
+    public synchronized Handler getHandler() {
+        if (handlerThread == null) {
+            handlerThread = new HandlerThread(name, Process.THREAD_PRIORITY_DISPLAY);
+            handlerThread.start();
+            handler = new Handler(handlerThread.getLooper());
+        }
+        return handler;
+    }
+
+    @NonNull
+    public Looper getLooper() {
+        return getHandler().getLooper();
+    }
+
+    /**
+     * 当前是否运行在相机线程上。
+     */
+    public synchronized boolean isCurrentThread() {
+        return handlerThread != null && handlerThread == Thread.currentThread();
+    }
+
+    /**
+     * 将任务提交到相机线程执行。
+     */
+    public void post(@NonNull Runnable runnable) {
+        getHandler().post(runnable);
+    }
+
+    public void postDelayed(@NonNull Runnable runnable, long delayMillis) {
+        getHandler().postDelayed(runnable, delayMillis);
+    }
+
+    public synchronized void removeCallbacks(@NonNull Runnable runnable) {
+        if (handler != null) {
+            handler.removeCallbacks(runnable);
+        }
+    }
+
+    /**
+     * 执行完已提交的任务后退出相机线程。再次调用 {@link #getHandler()} 会重新启动一个线程。
+     */
+    public synchronized void quitSafely() {
+        if (handlerThread == null) {
+            return;
+        }
+        handlerThread.quitSafely();
+        handlerThread = null;
+        handler = null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.camerapreview.camera2;
+
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CaptureFailure;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.TotalCaptureResult;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.camerapreview.core.FrameMetrics;
+import com.example.camerapreview.core.PreviewLatencyEstimator;
+
+/**
+ * 挂在重复请求上的 CaptureCallback，将每帧信息写入 {@link FrameMetrics}。
+ * <p>
+ * 传感器时间戳取自 onCaptureStarted 的基本类型参数（与 CaptureResult 的 SENSOR_TIMESTAMP 相同），不读取
+ * CaptureResult，回调中不产生额外分配。传入 {@link PreviewLatencyEstimator} 时同时交给它用于匹配预览帧。
+ * 需要完整拍摄结果的输出（如 {@link ZslCaptureStream}）可以通过 {@link #setResultListener} 接收 TotalCaptureResult。
+ */
+public class CaptureMetricsCallback extends CameraCaptureSession.CaptureCallback {
+
+    private final FrameMetrics metrics;
+    @Nullable
+    private final PreviewLatencyEstimator latencyEstimator;
+    @Nullable
+    private volatile ResultListener resultListener;
+
+    public interface ResultListener {
+        void onResult(@NonNull TotalCaptureResult result);
+    }
+
+    public CaptureMetricsCallback() {
+        this(new FrameMetrics(), null);
+    }
+
+    public CaptureMetricsCallback(@NonNull FrameMetrics metrics) {
+        this(metrics, null);
+    }
+
+    public CaptureMetricsCallback(@NonNull FrameMetrics metrics, @Nullable PreviewLatencyEstimator latencyEstimator) {
+        this.metrics = metrics;
+        this.latencyEstimator = latencyEstimator;
+    }
+
+    @NonNull
+    public FrameMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setResultListener(@Nullable ResultListener listener) {
+        resultListener = listener;
+    }
+
+    @Override
+    public void onCaptureStarted(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+                                 long timestamp, long frameNumber) {
+        metrics.onSensorTimestamp(timestamp);
+        if (latencyEstimator != null) {
+            latencyEstimator.onSensorTimestamp(timestamp);
+        }
+    }
+
+    @Override
+    public void onCaptureCompleted(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+                                   @NonNull TotalCaptureResult result) {
+        metrics.onFrame(System.nanoTime());
+        ResultListener listener = resultListener;
+        if (listener != null) {
+            listener.onResult(result);
+        }
+    }
+
+    @Override
+    public void onCaptureFailed(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+                                @NonNull CaptureFailure failure) {
+        metrics.onFailure();
+    }
+
+    @Override
+    public void onCaptureBufferLost(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+                                    @NonNull Surface target, long frameNumber) {
+        metrics.onBufferLost();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.camerapreview.camera2;
+
+import android.os.Handler;
+import android.util.Size;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.camerapreview.core.FrameRecorder;
+import com.example.camerapreview.core.KeepLatestPipeline;
+import com.example.camerapreview.core.YuvFrame;
+
+import java.util.concurrent.Executor;
+
+/**
+ * YUV_420_888 分析输出。
+ * <p>
+ * {@link Camera2FrameSource} 的 Surface 与预览 Surface 一起加入会话和重复请求。新帧在相机线程上取出后交给
+ * {@link KeepLatestPipeline}，分析器在独立的 executor 上只处理最新一帧；分析器忙时旧帧直接关闭并计为丢弃，
+ * 最多同时持有两帧，相机不会因为缓冲区被占满而停顿。每一帧都会被关闭，分析器不应自行关闭或保留帧。
+ * 传入 {@link FrameRecorder} 时，每帧在交给分析器之前先拷贝一份排队录制。
+ */
+public class ImageAnalysisStream {
+
+    public interface Analyzer {
+        /**
+         * 在分析线程调用，返回后帧即被关闭。
+         */
+        void analyze(@NonNull YuvFrame frame);
+    }
+
+    // 分析中 1 帧、等待中 1 帧，另外 2 个供 acquireLatestImage 与相机轮转
+    private static final int MAX_IMAGES = 4;
+    private final Camera2FrameSource frameSource;
+    private final KeepLatestPipeline<YuvFrame> pipeline;
+    private final Executor analysisExecutor;
+
+    public ImageAnalysisStream(@NonNull Size size, @NonNull Analyzer analyzer, @NonNull Executor analysisExecutor,
+                               @NonNull Handler cameraHandler) {
+        this(size, analyzer, analysisExecutor, cameraHandler, null);
+    }
+
+    public ImageAnalysisStream(@NonNull Size size, @NonNull Analyzer analyzer, @NonNull Executor analysisExecutor,
+                               @NonNull Handler cameraHandler, @Nullable final FrameRecorder recorder) {
+        this.analysisExecutor = analysisExecutor;
+        frameSource = new Camera2FrameSource(size, MAX_IMAGES, cameraHandler);
+        pipeline = new KeepLatestPipeline<>(analysisExecutor, analyzer::analyze, YuvFrame::close);
+        if (recorder == null) {
+            frameSource.start(pipeline::offer);
+        } else {
+            frameSource.start(frame -> {
+                // 只拷贝不做 IO，写入在录制线程完成
+                recorder.record(frame);
+                pipeline.offer(frame);
+            });
+        }
+    }
+
+    @NonNull
+    public Surface getSurface() {
+        return frameSource.getSurface();
+    }
+
+    @NonNull
+    public Size getSize() {
+        return new Size(frameSource.getResolution().getWidth(), frameSource.getResolution().getHeight());
+    }
+
+    /**
+     * 已交给分析器处理的帧数。
+     */
+    public long getDeliveredCount() {
+        return pipeline.getDeliveredCount();
+    }
+
+    /**
+     * 因分析器忙而丢弃的帧数。
+     */
+    public long getDroppedCount() {
+        return pipeline.getDroppedCount();
+    }
+
+    /**
+     * 分析器抛出异常的帧数。
+     */
+    public long getFailedCount() {
+        return pipeline.getFailedCount();
+    }
+
+    /**
+     * 关闭输出，需在相机线程调用。等待中的帧立即关闭，ImageReader 在分析线程处理完当前帧后关闭。
+     */
+    public void close() {
+        frameSource.stop();
+        pipeline.close();
+        analysisExecutor.execute(frameSource::close);
+    }
+}
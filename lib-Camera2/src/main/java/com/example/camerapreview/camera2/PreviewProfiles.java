@@ -0,0 +1,92 @@
+package com.example.camerapreview.camera2;
+
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CaptureRequest;
+import android.util.Range;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.camerapreview.core.PreviewProfile;
+
+/**
+ * 把 {@link PreviewProfile} 应用到预览请求。
+ * <p>
+ * 各模式按档位给出优先顺序，取相机支持的第一个；相机没有报告支持列表的模式保持模板默认值。
+ */
+public final class PreviewProfiles {
+
+    private PreviewProfiles() {
+    }
+
+    /**
+     * 设置自动曝光目标帧率范围及降噪、锐化、色差校正、坏点校正和防抖模式。
+     *
+     * @return 选中的帧率范围，相机未报告时为 null
+     */
+    @Nullable
+    public static Range<Integer> apply(@NonNull CaptureRequest.Builder builder,
+                                       @NonNull CameraCharacteristics characteristics,
+                                       @NonNull PreviewProfile profile) {
+        Range<Integer> fpsRange = chooseFpsRange(characteristics, profile);
+        if (fpsRange != null) {
+            builder.set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fpsRange);
+        }
+        boolean lowPower = profile == PreviewProfile.LOW_POWER;
+        boolean balanced = profile == PreviewProfile.BALANCED;
+
+        setFirstSupported(builder, CaptureRequest.NOISE_REDUCTION_MODE,
+                characteristics.get(CameraCharacteristics.NOISE_REDUCTION_AVAILABLE_NOISE_REDUCTION_MODES),
+                lowPower ? new int[]{CaptureRequest.NOISE_REDUCTION_MODE_OFF, CaptureRequest.NOISE_REDUCTION_MODE_FAST}
+                        : new int[]{CaptureRequest.NOISE_REDUCTION_MODE_FAST, CaptureRequest.NOISE_REDUCTION_MODE_OFF});
+        setFirstSupported(builder, CaptureRequest.EDGE_MODE,
+                characteristics.get(CameraCharacteristics.EDGE_AVAILABLE_EDGE_MODES),
+                lowPower ? new int[]{CaptureRequest.EDGE_MODE_OFF, CaptureRequest.EDGE_MODE_FAST}
+                        : new int[]{CaptureRequest.EDGE_MODE_FAST, CaptureRequest.EDGE_MODE_OFF});
+        setFirstSupported(builder, CaptureRequest.COLOR_CORRECTION_ABERRATION_MODE,
+                characteristics.get(CameraCharacteristics.COLOR_CORRECTION_AVAILABLE_ABERRATION_MODES),
+                lowPower ? new int[]{CaptureRequest.COLOR_CORRECTION_ABERRATION_MODE_OFF,
+                        CaptureRequest.COLOR_CORRECTION_ABERRATION_MODE_FAST}
+                        : new int[]{CaptureRequest.COLOR_CORRECTION_ABERRATION_MODE_FAST,
+                        CaptureRequest.COLOR_CORRECTION_ABERRATION_MODE_OFF});
+        setFirstSupported(builder, CaptureRequest.HOT_PIXEL_MODE,
+                characteristics.get(CameraCharacteristics.HOT_PIXEL_AVAILABLE_HOT_PIXEL_MODES),
+                lowPower ? new int[]{CaptureRequest.HOT_PIXEL_MODE_OFF, CaptureRequest.HOT_PIXEL_MODE_FAST}
+                        : new int[]{CaptureRequest.HOT_PIXEL_MODE_FAST, CaptureRequest.HOT_PIXEL_MODE_OFF});
+        // 防抖会带来额外的延迟和裁切，只在均衡档位保留模板默认值
+        if (!balanced) {
+            setFirstSupported(builder, CaptureRequest.CONTROL_VIDEO_STABILIZATION_MODE,
+                    characteristics.get(CameraCharacteristics.CONTROL_AVAILABLE_VIDEO_STABILIZATION_MODES),
+                    new int[]{CaptureRequest.CONTROL_VIDEO_STABILIZATION_MODE_OFF});
+        }
+        return fpsRange;
+    }
+
+    @Nullable
+    private static Range<Integer> chooseFpsRange(CameraCharacteristics characteristics, PreviewProfile profile) {
+        Range<Integer>[] available = characteristics.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        if (available == null || available.length == 0) {
+            return null;
+        }
+        int[][] ranges = new int[available.length][];
+        for (int i = 0; i < available.length; i++) {
+            ranges[i] = new int[]{available[i].getLower(), available[i].getUpper()};
+        }
+        return available[profile.chooseFpsRange(ranges)];
+    }
+
+    private static void setFirstSupported(CaptureRequest.Builder builder, CaptureRequest.Key<Integer> key,
+                                          @Nullable int[] available, int[] preferred) {
+        if (available == null) {
+            return;
+        }
+        for (int mode : preferred) {
+            for (int supported : available) {
+                if (mode == supported) {
+                    builder.set(key, mode);
+                    return;
+                }
+            }
+        }
+    }
+}
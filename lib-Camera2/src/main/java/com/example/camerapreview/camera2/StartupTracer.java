@@ -0,0 +1,165 @@
+package com.example.camerapreview.camera2;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * 相机启动耗时追踪。
+ * <p>
+ * 记录从 openCamera 到第一帧预览的各阶段单调时间戳（{@link SystemClock#elapsedRealtimeNanos()}），
+ * 并以 {@link Trace} 异步区段输出，便于在 Perfetto / systrace 中查看。每次启动的分阶段耗时保存在内存中，
+ * 可通过 {@link #dump()} 导出。
+ */
+public class StartupTracer {
+
+    /**
+     * 启动阶段，按发生顺序排列。
+     */
+    public enum Stage {
+        OPEN_CAMERA,
+        DEVICE_OPENED,
+        SESSION_CREATE,
+        SESSION_CONFIGURED,
+        FIRST_FRAME
+    }
+
+    private static final String TAG = "StartupTracer";
+    private static final String SECTION_PREFIX = "CameraStartup#";
+    private static final int MAX_HISTORY = 16;
+    private static final Stage[] STAGES = Stage.values();
+    private static final StartupTracer INSTANCE = new StartupTracer();
+
+    private final long[] timestamps = new long[STAGES.length];
+    private final ArrayDeque<String> history = new ArrayDeque<>();
+    private volatile boolean active = false;
+    private int launchCount = 0;
+    private int lastStage = -1;
+    private String launchKind;
+
+    /**
+     * 进程内共享的实例，使 Activity 重建后仍能导出之前的启动记录。
+     */
+    @NonNull
+    public static StartupTracer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 开始一次启动追踪，记录 {@link Stage#OPEN_CAMERA}。进程内的第一次启动记为冷启动。
+     */
+    public synchronized void begin() {
+        if (active) {
+            endSection(lastStage);
+        }
+        launchCount++;
+        launchKind = launchCount == 1 ? "cold" : "warm";
+        active = true;
+        lastStage = -1;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 0;
+        }
+        record(Stage.OPEN_CAMERA);
+    }
+
+    /**
+     * 记录到达某一阶段。未开始追踪或该阶段已记录时忽略，因此可以在每帧回调中直接调用。
+     */
+    public void mark(@NonNull Stage stage) {
+        if (!active) {
+            return;
+        }
+        synchronized (this) {
+            if (!active || timestamps[stage.ordinal()] != 0) {
+                return;
+            }
+            record(stage);
+            if (stage == Stage.FIRST_FRAME) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * 启动未完成时取消追踪，例如在出第一帧前解绑。
+     */
+    public synchronized void cancel() {
+        if (!active) {
+            return;
+        }
+        endSection(lastStage);
+        active = false;
+        Log.i(TAG, "launch #" + launchCount + " cancelled at " + STAGES[lastStage]);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 导出最近若干次启动的分阶段耗时，每次启动一行。
+     */
+    @NonNull
+    public synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (String launch : history) {
+            builder.append(launch).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private void record(Stage stage) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        timestamps[stage.ordinal()] = now;
+        endSection(lastStage);
+        lastStage = stage.ordinal();
+        if (stage != Stage.FIRST_FRAME) {
+            beginSection(lastStage);
+        }
+    }
+
+    private void finish() {
+        active = false;
+        long start = timestamps[Stage.OPEN_CAMERA.ordinal()];
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US, "launch #%d (%s):", launchCount, launchKind));
+        long previous = start;
+        for (int i = 1; i < STAGES.length; i++) {
+            if (timestamps[i] == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.US, " %s +%.1fms", STAGES[i], (timestamps[i] - previous) / 1e6));
+            previous = timestamps[i];
+        }
+        builder.append(String.format(Locale.US, ", total %.1fms",
+                (timestamps[Stage.FIRST_FRAME.ordinal()] - start) / 1e6));
+        String launch = builder.toString();
+        Log.i(TAG, launch);
+        if (history.size() == MAX_HISTORY) {
+            history.removeFirst();
+        }
+        history.addLast(launch);
+    }
+
+    private void beginSection(int stage) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // 各阶段跨越多个线程，只能使用异步区段
+            Trace.beginAsyncSection(SECTION_PREFIX + STAGES[stage], launchCount);
+        }
+    }
+
+    private void endSection(int stage) {
+        if (stage < 0 || stage == Stage.FIRST_FRAME.ordinal()) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(SECTION_PREFIX + STAGES[stage], launchCount);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.camerapreview.camera2;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowCameraCharacteristics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 使用 Robolectric 提供的假 CameraManager 验证相机回调不会在主线程执行。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CameraThreadTest {
+
+    private static final String CAMERA_ID = "0";
+    private CameraManager cameraManager;
+    private CameraThread cameraThread;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        cameraManager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        shadowOf(cameraManager).addCamera(CAMERA_ID, ShadowCameraCharacteristics.newCameraCharacteristics());
+        cameraThread = new CameraThread();
+    }
+
+    @After
+    public void tearDown() {
+        cameraThread.quitSafely();
+    }
+
+    @Test
+    public void postedWorkRunsOffMainLooper() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Looper> looper = new AtomicReference<>();
+        cameraThread.post(() -> {
+            looper.set(Looper.myLooper());
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNotSame(Looper.getMainLooper(), looper.get());
+        assertSame(cameraThread.getLooper(), looper.get());
+        assertFalse(cameraThread.isCurrentThread());
+    }
+
+    @Test
+    public void deviceCallbacksRunOnCameraThread() throws InterruptedException {
+        final CountDownLatch opened = new CountDownLatch(1);
+        final AtomicReference<Looper> openLooper = new AtomicReference<>();
+        final AtomicReference<Looper> callbackLooper = new AtomicReference<>();
+        final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
+            @Override
+            public void onOpened(@NonNull CameraDevice camera) {
+                callbackLooper.set(Looper.myLooper());
+                camera.close();
+                opened.countDown();
+            }
+
+            @Override
+            public void onDisconnected(@NonNull CameraDevice camera) {
+            }
+
+            @Override
+            public void onError(@NonNull CameraDevice camera, int error) {
+            }
+        };
+
+        cameraThread.post(() -> {
+            openLooper.set(Looper.myLooper());
+            try {
+                cameraManager.openCamera(CAMERA_ID, stateCallback, cameraThread.getHandler());
+            } catch (CameraAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertTrue(opened.await(5, TimeUnit.SECONDS));
+        assertSame(cameraThread.getLooper(), openLooper.get());
+        assertSame(cameraThread.getLooper(), callbackLooper.get());
+        assertNotSame(Looper.getMainLooper(), callbackLooper.get());
+    }
+
+    @Test
+    public void quitSafelyDrainsPendingWork() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        cameraThread.post(latch::countDown);
+        cameraThread.quitSafely();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.camerapreview.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按温度和负载调整预览质量的决策逻辑。
+ * <p>
+ * 质量分为若干级，级别越高越省电：先切换到低功耗档位（只替换重复请求），再限制预览像素数（需要重建会话）。
+ * 输入为 PowerManager 的温控状态和周期性的帧统计，输出为是否需要更新请求或重建会话，调用方负责执行。
+ * <ul>
+ * <li>温控状态直接给出最低级别，升温时立即降级；</li>
+ * <li>连续 {@link #OVERLOAD_SAMPLES} 次帧率低于帧率范围下限时降一级，两次降级之间至少间隔 minDwellMillis；</li>
+ * <li>温控允许、且温控状态与帧率都持续 recoverMillis 正常后才升一级，避免在两级之间来回切换。</li>
+ * </ul>
+ * 不依赖 Android，时间由调用方传入，可以用录制的数据回放测试。
+ */
+public class AdaptiveQualityController {
+
+    // 与 PowerManager.THERMAL_STATUS_* 取值相同
+    public static final int THERMAL_STATUS_NONE = 0;
+    public static final int THERMAL_STATUS_LIGHT = 1;
+    public static final int THERMAL_STATUS_MODERATE = 2;
+    public static final int THERMAL_STATUS_SEVERE = 3;
+    public static final int THERMAL_STATUS_CRITICAL = 4;
+
+    /**
+     * 连续多少次过载的帧统计后降级。
+     */
+    public static final int OVERLOAD_SAMPLES = 2;
+    // 帧率低于下限的该比例视为过载
+    private static final double FPS_TOLERANCE = 0.9;
+    // p95 帧间隔超过下限帧间隔的该倍数视为卡顿
+    private static final double STALL_FACTOR = 2.0;
+
+    public enum Action {
+        NONE,
+        /**
+         * 只需按新档位替换重复请求。
+         */
+        UPDATE_REQUEST,
+        /**
+         * 预览尺寸上限变化，需要重建会话。
+         */
+        RECONFIGURE_SESSION
+    }
+
+    /**
+     * 一个质量级别：预览档位与预览像素数上限。
+     */
+    public static final class Level {
+        private final String name;
+        private final PreviewProfile profile;
+        private final long maxPreviewPixels;
+
+        public Level(String name, PreviewProfile profile, long maxPreviewPixels) {
+            this.name = name;
+            this.profile = profile;
+            this.maxPreviewPixels = maxPreviewPixels;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PreviewProfile getProfile() {
+            return profile;
+        }
+
+        /**
+         * 预览像素数上限，{@link Long#MAX_VALUE} 表示不限制。
+         */
+        public long getMaxPreviewPixels() {
+            return maxPreviewPixels;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final List<Level> levels;
+    private final long minDwellMillis;
+    private final long recoverMillis;
+    private int levelIndex = 0;
+    private int thermalStatus = THERMAL_STATUS_NONE;
+    private int overloadedSamples = 0;
+    private long lastChangeMillis = Long.MIN_VALUE / 2;
+    private long healthySinceMillis = -1;
+    // 温控状态最近一次变化的时间，发热期间的正常帧不计入恢复时间
+    private long thermalChangedMillis = Long.MIN_VALUE / 2;
+    private int changeCount = 0;
+
+    public AdaptiveQualityController() {
+        this(defaultLevels(), 3000, 10000);
+    }
+
+    public AdaptiveQualityController(List<Level> levels, long minDwellMillis, long recoverMillis) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("No levels.");
+        }
+        this.levels = Collections.unmodifiableList(new ArrayList<>(levels));
+        this.minDwellMillis = minDwellMillis;
+        this.recoverMillis = recoverMillis;
+    }
+
+    /**
+     * 默认级别：均衡、低功耗、低功耗且不超过 720p、低功耗且不超过 VGA。
+     */
+    public static List<Level> defaultLevels() {
+        return Arrays.asList(
+                new Level("full", PreviewProfile.BALANCED, Long.MAX_VALUE),
+                new Level("low-power", PreviewProfile.LOW_POWER, Long.MAX_VALUE),
+                new Level("720p", PreviewProfile.LOW_POWER, 1280L * 720),
+                new Level("vga", PreviewProfile.LOW_POWER, 640L * 480));
+    }
+
+    public synchronized Level getLevel() {
+        return levels.get(levelIndex);
+    }
+
+    public synchronized int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public synchronized int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * 温控状态变化，取值同 PowerManager.THERMAL_STATUS_*。
+     */
+    public synchronized Action onThermalStatus(int status, long nowMillis) {
+        if (status != thermalStatus) {
+            thermalStatus = status;
+            thermalChangedMillis = nowMillis;
+        }
+        return evaluate(nowMillis);
+    }
+
+    /**
+     * 周期性的帧统计。
+     *
+     * @param fps            最近的实际帧率
+     * @param p95IntervalNs  最近帧间隔的 p95，为 0 时不检查卡顿
+     * @param minExpectedFps 当前帧率范围的下限，低于它说明出现丢帧
+     */
+    public synchronized Action onFrameStats(double fps, long p95IntervalNs, int minExpectedFps, long nowMillis) {
+        boolean overloaded = minExpectedFps > 0 && (fps < minExpectedFps * FPS_TOLERANCE
+                || p95IntervalNs > STALL_FACTOR * 1e9 / minExpectedFps);
+        if (overloaded) {
+            overloadedSamples++;
+            healthySinceMillis = -1;
+        } else {
+            overloadedSamples = 0;
+            if (healthySinceMillis < 0) {
+                healthySinceMillis = nowMillis;
+            }
+        }
+        return evaluate(nowMillis);
+    }
+
+    private Action evaluate(long nowMillis) {
+        int floor = thermalFloor();
+        int target = levelIndex;
+        if (levelIndex < floor) {
+            // 升温立即降级，不受间隔限制
+            target = floor;
+        } else if (overloadedSamples >= OVERLOAD_SAMPLES && levelIndex < levels.size() - 1
+                && nowMillis - lastChangeMillis >= minDwellMillis) {
+            target = levelIndex + 1;
+        } else if (levelIndex > floor && healthySinceMillis >= 0 && nowMillis - healthySinceMillis >= recoverMillis
+                && nowMillis - lastChangeMillis >= recoverMillis
+                && nowMillis - thermalChangedMillis >= recoverMillis) {
+            target = levelIndex - 1;
+        }
+        if (target == levelIndex) {
+            return Action.NONE;
+        }
+        Level from = levels.get(levelIndex);
+        Level to = levels.get(target);
+        levelIndex = target;
+        lastChangeMillis = nowMillis;
+        changeCount++;
+        overloadedSamples = 0;
+        // 新级别重新开始计算恢复时间
+        healthySinceMillis = -1;
+        if (from.maxPreviewPixels != to.maxPreviewPixels) {
+            return Action.RECONFIGURE_SESSION;
+        }
+        return from.profile != to.profile ? Action.UPDATE_REQUEST : Action.NONE;
+    }
+
+    // 温控状态允许的最低级别
+    private int thermalFloor() {
+        int floor;
+        if (thermalStatus >= THERMAL_STATUS_CRITICAL) {
+            floor = levels.size() - 1;
+        } else if (thermalStatus >= THERMAL_STATUS_SEVERE) {
+            floor = 2;
+        } else if (thermalStatus >= THERMAL_STATUS_MODERATE) {
+            floor = 1;
+        } else {
+            floor = 0;
+        }
+        return Math.min(floor, levels.size() - 1);
+    }
+}
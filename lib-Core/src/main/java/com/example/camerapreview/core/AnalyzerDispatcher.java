@@ -0,0 +1,285 @@
+package com.example.camerapreview.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把一帧分发给多个分析器并行处理。
+ * <p>
+ * 每个分析器同一时刻最多处理一帧：新帧到达时仍在处理上一帧的分析器跳过该帧并计为丢弃，空闲的分析器在 executor
+ * 上处理。由于每个分析器最多只有一个任务在排队，executor 的队列长度不会超过分析器数量。
+ * <p>
+ * 分析器共用同一帧，帧在接手它的所有分析器处理完后才交给 {@link Releaser} 释放。帧来源在释放前不交付新帧时
+ * （例如 CameraX 的 STRATEGY_KEEP_ONLY_LATEST），最慢的分析器决定所有分析器的帧率，丢帧发生在来源处而不是这里，
+ * 分析器各自的丢弃计数保持为 0。此时用 {@link #dispatch(Object, long)} 传入帧时间戳，按时间戳间隔统计来源丢帧。
+ * <p>
+ * 每个分析器单独统计处理帧数、丢弃帧数以及从分发到处理完成的延迟。
+ */
+public class AnalyzerDispatcher<T> {
+
+    public interface Analyzer<T> {
+        void analyze(T frame);
+    }
+
+    public interface Releaser<T> {
+        void release(T frame);
+    }
+
+    // 每个分析器保留最近的延迟样本数
+    private static final int LATENCY_CAPACITY = 128;
+    // 估计来源帧周期时参考的最近帧间隔数
+    private static final int INTERVAL_WINDOW = 9;
+
+    private final Executor executor;
+    private final Releaser<T> releaser;
+    // 写时复制，dispatch 时无需加锁
+    private volatile List<Entry<T>> entries = Collections.emptyList();
+    // 来源的帧时间戳，用于按间隔推算来源丢帧；0 表示需要重新建立基准
+    private long lastTimestampNs = 0;
+    // 最近的帧间隔，取中位数作为帧周期，自动曝光降低帧率后几帧内即可跟上
+    private final long[] intervals = new long[INTERVAL_WINDOW];
+    private final long[] sortedIntervals = new long[INTERVAL_WINDOW];
+    private int intervalCount = 0;
+    private int intervalIndex = 0;
+    private long sourceFrameCount = 0;
+    private long sourceDroppedCount = 0;
+
+    public AnalyzerDispatcher(Executor executor, Releaser<T> releaser) {
+        this.executor = executor;
+        this.releaser = releaser;
+    }
+
+    /**
+     * 添加分析器，从下一帧开始生效。名称重复时替换原有分析器。
+     */
+    public synchronized void addAnalyzer(String name, Analyzer<T> analyzer) {
+        List<Entry<T>> updated = new ArrayList<>(entries.size() + 1);
+        for (Entry<T> entry : entries) {
+            if (!entry.name.equals(name)) {
+                updated.add(entry);
+            }
+        }
+        updated.add(new Entry<>(name, analyzer));
+        entries = Collections.unmodifiableList(updated);
+    }
+
+    public synchronized boolean removeAnalyzer(String name) {
+        List<Entry<T>> updated = new ArrayList<>(entries);
+        for (int i = 0; i < updated.size(); i++) {
+            if (updated.get(i).name.equals(name)) {
+                updated.remove(i);
+                entries = Collections.unmodifiableList(updated);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分发一帧，并按与上一帧的时间戳间隔统计来源丢帧：以最近帧间隔的中位数为帧周期，间隔为其 n 倍时计为丢了 n - 1 帧。
+     * 时间戳需来自同一单调时钟，例如传感器时间戳。
+     */
+    public void dispatch(T frame, long timestampNs) {
+        synchronized (this) {
+            sourceFrameCount++;
+            if (lastTimestampNs != 0 && timestampNs > lastTimestampNs) {
+                long interval = timestampNs - lastTimestampNs;
+                long periodNs = addInterval(interval);
+                sourceDroppedCount += Math.max(0, (interval + periodNs / 2) / periodNs - 1);
+            }
+            lastTimestampNs = timestampNs;
+        }
+        dispatch(frame);
+    }
+
+    /**
+     * 来源重新开始交付（例如重新绑定）后调用，避免把中断时长计为丢帧。
+     */
+    public synchronized void markDiscontinuity() {
+        lastTimestampNs = 0;
+        // 重新绑定后帧率可能不同，帧周期重新估计
+        intervalCount = 0;
+        intervalIndex = 0;
+    }
+
+    // 记录一个帧间隔并返回最近间隔的中位数，个数为偶数时取较小的一个
+    private long addInterval(long interval) {
+        intervals[intervalIndex] = interval;
+        intervalIndex = (intervalIndex + 1) % INTERVAL_WINDOW;
+        if (intervalCount < INTERVAL_WINDOW) {
+            intervalCount++;
+        }
+        System.arraycopy(intervals, 0, sortedIntervals, 0, intervalCount);
+        Arrays.sort(sortedIntervals, 0, intervalCount);
+        return sortedIntervals[(intervalCount - 1) / 2];
+    }
+
+    /**
+     * 经 {@link #dispatch(Object, long)} 分发的帧数。
+     */
+    public synchronized long getSourceFrameCount() {
+        return sourceFrameCount;
+    }
+
+    /**
+     * 按时间戳间隔推算的来源丢帧数，只统计经 {@link #dispatch(Object, long)} 分发的帧。
+     */
+    public synchronized long getSourceDroppedCount() {
+        return sourceDroppedCount;
+    }
+
+    /**
+     * 分发一帧。没有空闲的分析器时立即释放。
+     */
+    public void dispatch(final T frame) {
+        final long dispatchNs = System.nanoTime();
+        // 分发期间自身持有一个引用，避免分析器提前处理完时过早释放
+        final AtomicInteger refs = new AtomicInteger(1);
+        for (final Entry<T> entry : entries) {
+            if (!entry.busy.compareAndSet(false, true)) {
+                entry.onDropped();
+                continue;
+            }
+            refs.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            entry.analyzer.analyze(frame);
+                        } finally {
+                            entry.onAnalyzed(System.nanoTime() - dispatchNs);
+                            entry.busy.set(false);
+                            if (refs.decrementAndGet() == 0) {
+                                releaser.release(frame);
+                            }
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // executor 已关闭
+                entry.busy.set(false);
+                entry.onDropped();
+                refs.decrementAndGet();
+            }
+        }
+        if (refs.decrementAndGet() == 0) {
+            releaser.release(frame);
+        }
+    }
+
+    /**
+     * 各分析器的统计快照，按添加顺序排列。
+     */
+    public List<Stats> getStats() {
+        List<Entry<T>> current = entries;
+        List<Stats> stats = new ArrayList<>(current.size());
+        for (Entry<T> entry : current) {
+            stats.add(entry.snapshot());
+        }
+        return stats;
+    }
+
+    private static final class Entry<T> {
+        final String name;
+        final Analyzer<T> analyzer;
+        final AtomicBoolean busy = new AtomicBoolean(false);
+        private final long[] latencies = new long[LATENCY_CAPACITY];
+        private int latencyIndex = 0;
+        private int latencySamples = 0;
+        private long analyzedCount = 0;
+        private long droppedCount = 0;
+
+        Entry(String name, Analyzer<T> analyzer) {
+            this.name = name;
+            this.analyzer = analyzer;
+        }
+
+        synchronized void onAnalyzed(long latencyNs) {
+            analyzedCount++;
+            latencies[latencyIndex] = latencyNs;
+            latencyIndex = (latencyIndex + 1) % latencies.length;
+            if (latencySamples < latencies.length) {
+                latencySamples++;
+            }
+        }
+
+        synchronized void onDropped() {
+            droppedCount++;
+        }
+
+        synchronized Stats snapshot() {
+            long[] sorted = Arrays.copyOf(latencies, latencySamples);
+            Arrays.sort(sorted);
+            return new Stats(name, analyzedCount, droppedCount, percentile(sorted, 50), percentile(sorted, 95),
+                    latencySamples == 0 ? 0 : sorted[latencySamples - 1]);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * 单个分析器的统计快照，延迟基于最近 128 帧。
+     */
+    public static final class Stats {
+        private final String name;
+        private final long analyzedCount;
+        private final long droppedCount;
+        private final long p50LatencyNs;
+        private final long p95LatencyNs;
+        private final long maxLatencyNs;
+
+        Stats(String name, long analyzedCount, long droppedCount, long p50LatencyNs, long p95LatencyNs,
+              long maxLatencyNs) {
+            this.name = name;
+            this.analyzedCount = analyzedCount;
+            this.droppedCount = droppedCount;
+            this.p50LatencyNs = p50LatencyNs;
+            this.p95LatencyNs = p95LatencyNs;
+            this.maxLatencyNs = maxLatencyNs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getAnalyzedCount() {
+            return analyzedCount;
+        }
+
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        public long getP50LatencyNs() {
+            return p50LatencyNs;
+        }
+
+        public long getP95LatencyNs() {
+            return p95LatencyNs;
+        }
+
+        public long getMaxLatencyNs() {
+            return maxLatencyNs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: analyzed=%d dropped=%d latency p50=%.1fms p95=%.1fms max=%.1fms",
+                    name, analyzedCount, droppedCount, p50LatencyNs / 1e6, p95LatencyNs / 1e6, maxLatencyNs / 1e6);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.camerapreview.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 预览恢复延迟统计：分别记录暂停后恢复重复请求（RESUME）与重新打开相机、创建会话（REBIND）到首帧的耗时，
+ * 便于对比两种方式。
+ * <p>
+ * 开始恢复时调用 {@link #begin(Kind, long)}，之后第一次 {@link #onFrame(long)} 记为首帧，其余帧忽略。
+ * 时间戳需来自同一单调时钟。
+ */
+public class BindLatencyMetrics {
+
+    public enum Kind {
+        RESUME,
+        REBIND
+    }
+
+    private static final int CAPACITY = 32;
+
+    private final long[][] samples = new long[Kind.values().length][CAPACITY];
+    private final int[] indexes = new int[Kind.values().length];
+    private final long[] counts = new long[Kind.values().length];
+    private Kind pendingKind;
+    private long pendingStartNs;
+
+    /**
+     * 开始一次恢复，未完成的上一次被丢弃。
+     */
+    public synchronized void begin(Kind kind, long nowNs) {
+        pendingKind = kind;
+        pendingStartNs = nowNs;
+    }
+
+    /**
+     * 取消尚未出帧的恢复，例如恢复过程中又被暂停或关闭。
+     */
+    public synchronized void cancel() {
+        pendingKind = null;
+    }
+
+    public synchronized void onFrame(long nowNs) {
+        if (pendingKind == null) {
+            return;
+        }
+        int kind = pendingKind.ordinal();
+        samples[kind][indexes[kind]] = nowNs - pendingStartNs;
+        indexes[kind] = (indexes[kind] + 1) % CAPACITY;
+        counts[kind]++;
+        pendingKind = null;
+    }
+
+    public synchronized long getCount(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * 最近 32 次的中位数（纳秒），没有样本时为 0。
+     */
+    public synchronized long getMedianNs(Kind kind) {
+        int kindIndex = kind.ordinal();
+        int size = (int) Math.min(counts[kindIndex], CAPACITY);
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples[kindIndex], size);
+        Arrays.sort(sorted);
+        return sorted[(size - 1) / 2];
+    }
+
+    /**
+     * 最近一次的耗时（纳秒），没有样本时为 0。
+     */
+    public synchronized long getLastNs(Kind kind) {
+        int kindIndex = kind.ordinal();
+        if (counts[kindIndex] == 0) {
+            return 0;
+        }
+        return samples[kindIndex][(indexes[kindIndex] + CAPACITY - 1) % CAPACITY];
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(String.format(Locale.US, "%s n=%d last=%.1fms p50=%.1fms", kind, getCount(kind),
+                    getLastNs(kind) / 1e6, getMedianNs(kind) / 1e6));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.camerapreview.core;
+
+/**
+ * 相机生命周期状态机：CLOSED → OPENING → OPEN → CONFIGURED → CLOSING → CLOSED。
+ * <p>
+ * 调用方只声明期望状态（{@link #requestOpen()} / {@link #requestClose()}），状态机在异步操作完成后再决定下一步，
+ * 因此重复的请求会被合并：打开过程中重复请求打开不会再次打开，打开过程中先关后开也不会关闭再重开。
+ * 任何时刻最多只有一个打开或关闭操作在进行。
+ * <p>
+ * 所有方法都是线程安全的，{@link Device} 的各方法在持有锁时调用，实现中应只投递任务而不阻塞。
+ */
+public class CameraStateMachine {
+
+    public enum State {
+        CLOSED,
+        OPENING,
+        OPEN,
+        CONFIGURED,
+        CLOSING
+    }
+
+    /**
+     * 被控制的相机设备，各操作完成后需回调状态机对应的 on* 方法。
+     */
+    public interface Device {
+        /**
+         * 打开相机，完成后回调 {@link #onOpened()}，失败时回调 {@link #onError()} 或 {@link #onOpenFailed()}。
+         */
+        void open();
+
+        /**
+         * 创建会话，完成后回调 {@link #onConfigured()} 或 {@link #onConfigureFailed()}。
+         */
+        void configure();
+
+        /**
+         * 关闭相机，完成后回调 {@link #onClosed()}。
+         */
+        void close();
+    }
+
+    private final Device device;
+    private State state = State.CLOSED;
+    private boolean openRequested = false;
+    private boolean configuring = false;
+    private int openCount = 0;
+    private int closeCount = 0;
+
+    public CameraStateMachine(Device device) {
+        this.device = device;
+    }
+
+    public synchronized void requestOpen() {
+        openRequested = true;
+        advance();
+    }
+
+    public synchronized void requestClose() {
+        openRequested = false;
+        advance();
+    }
+
+    public synchronized void onOpened() {
+        if (state != State.OPENING) {
+            return;
+        }
+        state = State.OPEN;
+        advance();
+    }
+
+    public synchronized void onConfigured() {
+        if (state != State.OPEN || !configuring) {
+            return;
+        }
+        configuring = false;
+        state = State.CONFIGURED;
+        advance();
+    }
+
+    /**
+     * 会话配置失败，放弃本次打开请求并关闭相机。
+     */
+    public synchronized void onConfigureFailed() {
+        configuring = false;
+        openRequested = false;
+        advance();
+    }
+
+    /**
+     * 相机断开或出错，放弃本次打开请求并关闭相机。
+     */
+    public synchronized void onError() {
+        openRequested = false;
+        if (state == State.OPENING || state == State.OPEN || state == State.CONFIGURED) {
+            close();
+        }
+    }
+
+    /**
+     * 打开相机时同步失败（没有任何回调会到达）。
+     */
+    public synchronized void onOpenFailed() {
+        if (state != State.OPENING) {
+            return;
+        }
+        openRequested = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onClosed() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        state = State.CLOSED;
+        configuring = false;
+        advance();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 当前是否期望相机处于打开状态。
+     */
+    public synchronized boolean isOpenRequested() {
+        return openRequested;
+    }
+
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    public synchronized int getCloseCount() {
+        return closeCount;
+    }
+
+    private void advance() {
+        switch (state) {
+            case CLOSED:
+                if (openRequested) {
+                    state = State.OPENING;
+                    openCount++;
+                    device.open();
+                }
+                break;
+            case OPEN:
+                if (!openRequested) {
+                    close();
+                } else if (!configuring) {
+                    configuring = true;
+                    device.configure();
+                }
+                break;
+            case CONFIGURED:
+                if (!openRequested) {
+                    close();
+                }
+                break;
+            default:
+                // OPENING、CLOSING 等待回调后再继续
+        }
+    }
+
+    private void close() {
+        state = State.CLOSING;
+        configuring = false;
+        closeCount++;
+        device.close();
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.camerapreview.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 逐帧预览指标统计。
+ * <p>
+ * 记录帧到达间隔与传感器时间戳间隔，统计失败帧、丢失缓冲区数量。数据保存在固定大小的基本类型环形缓冲区中，
+ * 记录时不分配内存，可以直接在相机回调中调用。通过 {@link #snapshot()} 获取统计快照。
+ */
+public class FrameMetrics {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * 帧间隔直方图的桶上界（纳秒），最后一个桶收集超出所有上界的帧间隔。
+     */
+    private static final long[] BUCKET_BOUNDS_NS = {
+            8_000_000L, 17_000_000L, 34_000_000L, 50_000_000L, 67_000_000L, 100_000_000L, 200_000_000L
+    };
+
+    private final long[] frameIntervals;
+    private final long[] sensorIntervals;
+    private final long[] histogram = new long[BUCKET_BOUNDS_NS.length + 1];
+    private int frameIndex = 0;
+    private int frameSamples = 0;
+    private int sensorIndex = 0;
+    private int sensorSamples = 0;
+    private long lastFrameNs = 0;
+    private long lastSensorNs = 0;
+    private long frameCount = 0;
+    private long failureCount = 0;
+    private long bufferLostCount = 0;
+
+    public FrameMetrics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FrameMetrics(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        frameIntervals = new long[capacity];
+        sensorIntervals = new long[capacity];
+    }
+
+    /**
+     * 记录一帧到达，时间戳需来自单调时钟。
+     */
+    public synchronized void onFrame(long timestampNs) {
+        frameCount++;
+        if (lastFrameNs != 0) {
+            long interval = timestampNs - lastFrameNs;
+            frameIntervals[frameIndex] = interval;
+            frameIndex = (frameIndex + 1) % frameIntervals.length;
+            if (frameSamples < frameIntervals.length) {
+                frameSamples++;
+            }
+            histogram[bucketOf(interval)]++;
+        }
+        lastFrameNs = timestampNs;
+    }
+
+    /**
+     * 记录一帧的传感器时间戳（SENSOR_TIMESTAMP），用于计算曝光起始时间的抖动。
+     */
+    public synchronized void onSensorTimestamp(long sensorTimestampNs) {
+        if (lastSensorNs != 0) {
+            sensorIntervals[sensorIndex] = sensorTimestampNs - lastSensorNs;
+            sensorIndex = (sensorIndex + 1) % sensorIntervals.length;
+            if (sensorSamples < sensorIntervals.length) {
+                sensorSamples++;
+            }
+        }
+        lastSensorNs = sensorTimestampNs;
+    }
+
+    public synchronized void onFailure() {
+        failureCount++;
+    }
+
+    public synchronized void onBufferLost() {
+        bufferLostCount++;
+    }
+
+    /**
+     * 帧序列中断（例如重新配置会话）后调用，避免把中断时长计入帧间隔。
+     */
+    public synchronized void markDiscontinuity() {
+        lastFrameNs = 0;
+        lastSensorNs = 0;
+    }
+
+    public synchronized void reset() {
+        markDiscontinuity();
+        frameIndex = 0;
+        frameSamples = 0;
+        sensorIndex = 0;
+        sensorSamples = 0;
+        frameCount = 0;
+        failureCount = 0;
+        bufferLostCount = 0;
+        Arrays.fill(histogram, 0);
+    }
+
+    public synchronized Snapshot snapshot() {
+        long[] intervals = Arrays.copyOf(frameIntervals, frameSamples);
+        Arrays.sort(intervals);
+        long sum = 0;
+        for (long interval : intervals) {
+            sum += interval;
+        }
+        double meanIntervalNs = frameSamples == 0 ? 0 : (double) sum / frameSamples;
+        double fps = sum == 0 ? 0 : frameSamples * 1e9 / sum;
+        return new Snapshot(frameCount, failureCount, bufferLostCount, fps, meanIntervalNs,
+                percentile(intervals, 50), percentile(intervals, 95),
+                frameSamples == 0 ? 0 : intervals[frameSamples - 1],
+                sensorJitterNs(), histogram.clone());
+    }
+
+    /**
+     * 传感器时间戳间隔的标准差（纳秒）。
+     */
+    private double sensorJitterNs() {
+        if (sensorSamples < 2) {
+            return 0;
+        }
+        double mean = 0;
+        for (int i = 0; i < sensorSamples; i++) {
+            mean += sensorIntervals[i];
+        }
+        mean /= sensorSamples;
+        double variance = 0;
+        for (int i = 0; i < sensorSamples; i++) {
+            double diff = sensorIntervals[i] - mean;
+            variance += diff * diff;
+        }
+        return Math.sqrt(variance / sensorSamples);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static int bucketOf(long intervalNs) {
+        for (int i = 0; i < BUCKET_BOUNDS_NS.length; i++) {
+            if (intervalNs <= BUCKET_BOUNDS_NS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_NS.length;
+    }
+
+    /**
+     * 直方图各桶的上界（纳秒），长度比 {@link Snapshot#getHistogram()} 少 1。
+     */
+    public static long[] getBucketBoundsNs() {
+        return BUCKET_BOUNDS_NS.clone();
+    }
+
+    /**
+     * 某一时刻的统计快照。帧间隔相关数据基于最近 capacity 帧。
+     */
+    public static final class Snapshot {
+        private final long frameCount;
+        private final long failureCount;
+        private final long bufferLostCount;
+        private final double fps;
+        private final double meanIntervalNs;
+        private final long p50IntervalNs;
+        private final long p95IntervalNs;
+        private final long maxIntervalNs;
+        private final double sensorJitterNs;
+        private final long[] histogram;
+
+        Snapshot(long frameCount, long failureCount, long bufferLostCount, double fps, double meanIntervalNs,
+                 long p50IntervalNs, long p95IntervalNs, long maxIntervalNs, double sensorJitterNs,
+                 long[] histogram) {
+            this.frameCount = frameCount;
+            this.failureCount = failureCount;
+            this.bufferLostCount = bufferLostCount;
+            this.fps = fps;
+            this.meanIntervalNs = meanIntervalNs;
+            this.p50IntervalNs = p50IntervalNs;
+            this.p95IntervalNs = p95IntervalNs;
+            this.maxIntervalNs = maxIntervalNs;
+            this.sensorJitterNs = sensorJitterNs;
+            this.histogram = histogram;
+        }
+
+        public long getFrameCount() {
+            return frameCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public long getBufferLostCount() {
+            return bufferLostCount;
+        }
+
+        /**
+         * 有效帧率，由最近的帧间隔计算。
+         */
+        public double getFps() {
+            return fps;
+        }
+
+        public double getMeanIntervalNs() {
+            return meanIntervalNs;
+        }
+
+        public long getP50IntervalNs() {
+            return p50IntervalNs;
+        }
+
+        public long getP95IntervalNs() {
+            return p95IntervalNs;
+        }
+
+        public long getMaxIntervalNs() {
+            return maxIntervalNs;
+        }
+
+        public double getSensorJitterNs() {
+            return sensorJitterNs;
+        }
+
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "frames=%d failed=%d bufferLost=%d fps=%.1f interval p50=%.1fms p95=%.1fms max=%.1fms"
+                            + " sensorJitter=%.2fms histogram=%s",
+                    frameCount, failureCount, bufferLostCount, fps, p50IntervalNs / 1e6, p95IntervalNs / 1e6,
+                    maxIntervalNs / 1e6, sensorJitterNs / 1e6, Arrays.toString(histogram));
+        }
+    }
+}
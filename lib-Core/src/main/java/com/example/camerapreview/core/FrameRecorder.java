@@ -0,0 +1,236 @@
+package com.example.camerapreview.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 YUV 帧原样录制到分段文件，用于在 JVM 上用 {@link RecordedFrameSource} 复现现场的性能问题。
+ * <p>
+ * {@link #record(YuvFrame)} 只把三个平面拷贝到预先分配的缓冲区，再交给写入线程，不做任何 IO；缓冲区都在等待写入时
+ * 直接丢弃该帧并计数，不会阻塞相机回调。写入线程通过 MappedByteBuffer 顺序写入 segment-NNNNN.yuvrec，写满
+ * segmentBytes 后截断到实际长度并开始下一段。
+ * <p>
+ * 文件格式（小端）：文件头为 magic、version 两个 int；之后每帧一条记录，依次为 timestampNs（long）、width、
+ * height、yRowStride、uvRowStride、uvPixelStride、yLength、uLength、vLength（int），然后是三个平面的数据。平面只
+ * 保存到最后一个有效像素，不含末尾的行填充。
+ */
+public class FrameRecorder implements Closeable {
+
+    static final int MAGIC = 0x52565559; // "YUVR"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 40;
+    static final String SEGMENT_SUFFIX = ".yuvrec";
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private final File directory;
+    private final long segmentBytes;
+    private final ArrayDeque<ByteBuffer> freeBuffers;
+    private final ExecutorService writer;
+    private long recordedCount = 0;
+    private long droppedCount = 0;
+    private boolean closed = false;
+    // 以下字段仅在写入线程访问
+    private int segmentIndex = 0;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private IOException writeError;
+
+    public FrameRecorder(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, 4);
+    }
+
+    /**
+     * @param maxPending 等待写入的最大帧数，即预先分配的拷贝缓冲区个数
+     */
+    public FrameRecorder(File directory, long segmentBytes, int maxPending) throws IOException {
+        this(directory, segmentBytes, maxPending,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "FrameRecorder")));
+    }
+
+    // writer 需为单线程，测试中用来模拟写入缓慢
+    FrameRecorder(File directory, long segmentBytes, int maxPending, ExecutorService writer) throws IOException {
+        if (segmentBytes <= FILE_HEADER_BYTES + RECORD_HEADER_BYTES || maxPending <= 0) {
+            throw new IllegalArgumentException("Invalid recorder: " + segmentBytes + " x" + maxPending);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        freeBuffers = new ArrayDeque<>(maxPending);
+        for (int i = 0; i < maxPending; i++) {
+            // 首帧时按实际大小分配
+            freeBuffers.push(ByteBuffer.allocate(0));
+        }
+        this.writer = writer;
+    }
+
+    /**
+     * 拷贝一帧并排队写入，可在相机线程调用，帧仍由调用方关闭。
+     *
+     * @return 因缓冲区全部在等待写入或已关闭而丢弃时返回 false，写入错误在 {@link #close()} 时抛出
+     */
+    public boolean record(YuvFrame frame) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = closed ? null : freeBuffers.poll();
+            if (buffer == null) {
+                droppedCount++;
+                return false;
+            }
+        }
+        int chromaWidth = (frame.getWidth() + 1) / 2;
+        int chromaHeight = (frame.getHeight() + 1) / 2;
+        int yLength = planeLength(frame.getYPlane(), frame.getYRowStride(), 1, frame.getWidth(), frame.getHeight());
+        int uLength = planeLength(frame.getUPlane(), frame.getUvRowStride(), frame.getUvPixelStride(), chromaWidth,
+                chromaHeight);
+        int vLength = planeLength(frame.getVPlane(), frame.getUvRowStride(), frame.getUvPixelStride(), chromaWidth,
+                chromaHeight);
+        int size = RECORD_HEADER_BYTES + yLength + uLength + vLength;
+        if (buffer.capacity() < size) {
+            // 只在分辨率变大时重新分配
+            buffer = ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(frame.getTimestampNs())
+                .putInt(frame.getWidth())
+                .putInt(frame.getHeight())
+                .putInt(frame.getYRowStride())
+                .putInt(frame.getUvRowStride())
+                .putInt(frame.getUvPixelStride())
+                .putInt(yLength)
+                .putInt(uLength)
+                .putInt(vLength);
+        copy(frame.getYPlane(), yLength, buffer);
+        copy(frame.getUPlane(), uLength, buffer);
+        copy(frame.getVPlane(), vLength, buffer);
+        buffer.flip();
+        final ByteBuffer pending = buffer;
+        synchronized (this) {
+            if (closed) {
+                // 拷贝期间被关闭
+                freeBuffers.push(pending);
+                droppedCount++;
+                return false;
+            }
+            recordedCount++;
+            writer.execute(() -> write(pending));
+        }
+        return true;
+    }
+
+    public synchronized long getRecordedCount() {
+        return recordedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 写完已排队的帧并截断最后一段，返回前抛出写入过程中的错误。
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        writer.execute(this::finishSegment);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out writing " + directory);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    static File segmentFile(File directory, int index) {
+        return new File(directory, String.format(Locale.US, "segment-%05d%s", index, SEGMENT_SUFFIX));
+    }
+
+    // 平面从起始位置到最后一个有效像素的字节数
+    private static int planeLength(ByteBuffer plane, int rowStride, int pixelStride, int width, int height) {
+        int length = rowStride * (height - 1) + pixelStride * (width - 1) + 1;
+        return Math.min(length, plane.limit());
+    }
+
+    private static void copy(ByteBuffer plane, int length, ByteBuffer out) {
+        ByteBuffer source = plane.duplicate();
+        source.position(0).limit(length);
+        out.put(source);
+    }
+
+    // 在写入线程调用
+    private void write(ByteBuffer record) {
+        try {
+            if (writeError == null) {
+                if (segment != null && segment.remaining() < record.remaining()) {
+                    finishSegment();
+                }
+                if (segment == null) {
+                    startSegment(record.remaining());
+                }
+                segment.put(record);
+            }
+        } catch (IOException e) {
+            writeError = e;
+        } finally {
+            synchronized (this) {
+                freeBuffers.push(record);
+            }
+        }
+    }
+
+    private void startSegment(int recordBytes) throws IOException {
+        long size = Math.max(segmentBytes, FILE_HEADER_BYTES + recordBytes);
+        channel = FileChannel.open(segmentFile(directory, segmentIndex++).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(MAGIC).putInt(VERSION);
+    }
+
+    // 截断到实际写入的长度并关闭当前段
+    private void finishSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.force();
+            channel.truncate(segment.position());
+            channel.close();
+        } catch (IOException e) {
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+        segment = null;
+        channel = null;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.camerapreview.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 分析帧的裁剪与缩小。
+ * <p>
+ * 直接从 {@link YuvFrame} 的 Y/U/V 平面（任意行跨度与像素跨度）读取裁剪区域，缩放到调用方提供的 {@link Output}：
+ * 亮度写入 {@code width * height} 的 byte[]，可选的 U、V 各写入 {@code ceil(width/2) * ceil(height/2)} 的 byte[]。
+ * 裁剪坐标以亮度像素为单位，色度区域取覆盖该范围的色度像素。
+ * <ul>
+ * <li>{@link Filter#BOX}：每个输出像素取其覆盖的源像素的平均值（边界按整数截断），缩小一半即 2x2 平均；</li>
+ * <li>{@link Filter#BILINEAR}：按像素中心对齐取相邻 4 个源像素，以 8 位定点权重插值。</li>
+ * </ul>
+ * 像素数达到阈值的裁剪区域按输出行分段在 {@link ForkJoinPool} 上并行处理。列映射表与分段任务逐帧复用，输出尺寸不变时
+ * 不分配内存。同一实例同一时刻只处理一帧，并发调用会串行执行。
+ */
+public class FrameScaler {
+
+    public enum Filter {
+        BOX,
+        BILINEAR
+    }
+
+    /**
+     * 缩放结果，由调用方创建并逐帧复用。
+     */
+    public static final class Output {
+        private final int width;
+        private final int height;
+        private final byte[] luma;
+        private final byte[] u;
+        private final byte[] v;
+
+        public Output(int width, int height, boolean includeChroma) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Invalid output: " + width + "x" + height);
+            }
+            this.width = width;
+            this.height = height;
+            luma = new byte[width * height];
+            int chromaSize = includeChroma ? getChromaWidth() * getChromaHeight() : 0;
+            u = includeChroma ? new byte[chromaSize] : null;
+            v = includeChroma ? new byte[chromaSize] : null;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getChromaWidth() {
+            return (width + 1) / 2;
+        }
+
+        public int getChromaHeight() {
+            return (height + 1) / 2;
+        }
+
+        /**
+         * 第 row 行第 col 列位于 {@code row * width + col}。
+         */
+        public byte[] getLuma() {
+            return luma;
+        }
+
+        /**
+         * 未包含色度时为 null。
+         */
+        public byte[] getU() {
+            return u;
+        }
+
+        public byte[] getV() {
+            return v;
+        }
+    }
+
+    // 默认并行阈值，裁剪区域小于该像素数时在调用线程处理
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 640 * 480;
+    // 双线性插值的定点位数
+    private static final int FRACTION_BITS = 8;
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private final Filter filter;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final StripTask[] strips;
+    private final RecursiveAction rootTask = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            for (int i = 1; i < stripCount; i++) {
+                strips[i].fork();
+            }
+            strips[0].compute();
+            for (int i = 1; i < stripCount; i++) {
+                strips[i].join();
+            }
+        }
+    };
+
+    // 列映射表：BOX 为每个输出列覆盖的源列 [start, end)，BILINEAR 为左侧源列与右侧权重
+    private int[] lumaColumns = new int[0];
+    private int[] lumaColumnArgs = new int[0];
+    private int[] chromaColumns = new int[0];
+    private int[] chromaColumnArgs = new int[0];
+
+    // 当前帧参数，在分段任务 fork 之前写入
+    private YuvFrame frame;
+    private Output out;
+    private int lumaTop;
+    private int lumaCropHeight;
+    private int chromaTop;
+    private int chromaCropHeight;
+    private int stripCount;
+
+    public FrameScaler(Filter filter) {
+        this(filter, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public FrameScaler(Filter filter, ForkJoinPool pool, int parallelThreshold) {
+        this.filter = filter;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        strips = new StripTask[Math.max(1, pool.getParallelism())];
+        for (int i = 0; i < strips.length; i++) {
+            strips[i] = new StripTask(i);
+        }
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * 整帧缩放到 out 的尺寸。
+     */
+    public void scale(YuvFrame frame, Output out) {
+        scale(frame, 0, 0, frame.getWidth(), frame.getHeight(), out);
+    }
+
+    /**
+     * 裁剪 (left, top, cropWidth, cropHeight) 区域并缩放到 out 的尺寸，帧不会被关闭。
+     */
+    public synchronized void scale(YuvFrame frame, int left, int top, int cropWidth, int cropHeight, Output out) {
+        if (left < 0 || top < 0 || cropWidth <= 0 || cropHeight <= 0
+                || left + cropWidth > frame.getWidth() || top + cropHeight > frame.getHeight()) {
+            throw new IllegalArgumentException("Crop (" + left + ", " + top + ", " + cropWidth + "x" + cropHeight
+                    + ") outside " + frame.getWidth() + "x" + frame.getHeight());
+        }
+        lumaColumns = ensureCapacity(lumaColumns, out.width);
+        lumaColumnArgs = ensureCapacity(lumaColumnArgs, out.width);
+        mapColumns(left, cropWidth, out.width, lumaColumns, lumaColumnArgs);
+        lumaTop = top;
+        lumaCropHeight = cropHeight;
+        if (out.u != null) {
+            // 覆盖亮度裁剪区域的色度像素
+            int chromaLeft = left / 2;
+            int chromaWidth = (left + cropWidth + 1) / 2 - chromaLeft;
+            chromaTop = top / 2;
+            chromaCropHeight = (top + cropHeight + 1) / 2 - chromaTop;
+            chromaColumns = ensureCapacity(chromaColumns, out.getChromaWidth());
+            chromaColumnArgs = ensureCapacity(chromaColumnArgs, out.getChromaWidth());
+            mapColumns(chromaLeft, chromaWidth, out.getChromaWidth(), chromaColumns, chromaColumnArgs);
+        }
+        this.frame = frame;
+        this.out = out;
+        try {
+            if (cropWidth * cropHeight < parallelThreshold || strips.length == 1) {
+                stripCount = 1;
+                scaleStrip(0);
+                return;
+            }
+            stripCount = Math.min(strips.length, out.height);
+            for (int i = 0; i < stripCount; i++) {
+                strips[i].reinitialize();
+            }
+            rootTask.reinitialize();
+            pool.invoke(rootTask);
+        } finally {
+            // 不持有调用方的帧与输出
+            this.frame = null;
+            this.out = null;
+        }
+    }
+
+    private static int[] ensureCapacity(int[] table, int size) {
+        return table.length >= size ? table : new int[size];
+    }
+
+    private void mapColumns(int start, int cropSize, int outSize, int[] columns, int[] args) {
+        for (int o = 0; o < outSize; o++) {
+            if (filter == Filter.BOX) {
+                // 第 o 个输出像素覆盖的源范围 [from, to)，放大时至少取一个像素
+                int from = start + (int) ((long) o * cropSize / outSize);
+                int to = start + (int) ((long) (o + 1) * cropSize / outSize);
+                columns[o] = from;
+                args[o] = Math.max(to, from + 1);
+            } else {
+                int position = bilinearPosition(cropSize, outSize, o);
+                columns[o] = start + (position >> FRACTION_BITS);
+                args[o] = position & (ONE - 1);
+            }
+        }
+    }
+
+    // 第 o 个输出像素中心在裁剪区域中的位置，定点表示；落在最后一个像素上时权重为 0，不越界读取
+    private static int bilinearPosition(int cropSize, int outSize, int o) {
+        long position = (2L * o + 1) * cropSize * (ONE / 2) / outSize - ONE / 2;
+        if (position < 0) {
+            return 0;
+        }
+        if (position >= (long) (cropSize - 1) << FRACTION_BITS) {
+            return (cropSize - 1) << FRACTION_BITS;
+        }
+        return (int) position;
+    }
+
+    private void scaleStrip(int index) {
+        YuvFrame frame = this.frame;
+        Output out = this.out;
+        int lumaStart = index * out.height / stripCount;
+        int lumaEnd = (index + 1) * out.height / stripCount;
+        scalePlane(frame.getYPlane(), frame.getYRowStride(), 1, lumaTop, lumaCropHeight, out.height,
+                lumaColumns, lumaColumnArgs, out.width, out.luma, lumaStart, lumaEnd);
+        if (out.u != null) {
+            int chromaHeight = out.getChromaHeight();
+            int chromaStart = index * chromaHeight / stripCount;
+            int chromaEnd = (index + 1) * chromaHeight / stripCount;
+            scalePlane(frame.getUPlane(), frame.getUvRowStride(), frame.getUvPixelStride(), chromaTop,
+                    chromaCropHeight, chromaHeight, chromaColumns, chromaColumnArgs, out.getChromaWidth(), out.u,
+                    chromaStart, chromaEnd);
+            scalePlane(frame.getVPlane(), frame.getUvRowStride(), frame.getUvPixelStride(), chromaTop,
+                    chromaCropHeight, chromaHeight, chromaColumns, chromaColumnArgs, out.getChromaWidth(), out.v,
+                    chromaStart, chromaEnd);
+        }
+    }
+
+    private void scalePlane(ByteBuffer plane, int rowStride, int pixelStride, int top, int cropHeight, int outHeight,
+                            int[] columns, int[] args, int outWidth, byte[] dst, int startRow, int endRow) {
+        final int base = plane.position();
+        for (int row = startRow; row < endRow; row++) {
+            int outIndex = row * outWidth;
+            if (filter == Filter.BOX) {
+                int from = top + (int) ((long) row * cropHeight / outHeight);
+                int to = Math.max(top + (int) ((long) (row + 1) * cropHeight / outHeight), from + 1);
+                for (int col = 0; col < outWidth; col++) {
+                    int colFrom = columns[col];
+                    int colTo = args[col];
+                    long sum = 0;
+                    for (int y = from; y < to; y++) {
+                        int index = base + y * rowStride + colFrom * pixelStride;
+                        for (int x = colFrom; x < colTo; x++) {
+                            sum += plane.get(index) & 0xFF;
+                            index += pixelStride;
+                        }
+                    }
+                    long count = (long) (to - from) * (colTo - colFrom);
+                    dst[outIndex + col] = (byte) ((sum + count / 2) / count);
+                }
+            } else {
+                int position = bilinearPosition(cropHeight, outHeight, row);
+                int y0 = base + (top + (position >> FRACTION_BITS)) * rowStride;
+                int fy = position & (ONE - 1);
+                int y1 = fy == 0 ? y0 : y0 + rowStride;
+                for (int col = 0; col < outWidth; col++) {
+                    int x0 = columns[col] * pixelStride;
+                    int fx = args[col];
+                    int x1 = fx == 0 ? x0 : x0 + pixelStride;
+                    int topValue = (plane.get(y0 + x0) & 0xFF) * (ONE - fx) + (plane.get(y0 + x1) & 0xFF) * fx;
+                    int bottomValue = (plane.get(y1 + x0) & 0xFF) * (ONE - fx) + (plane.get(y1 + x1) & 0xFF) * fx;
+                    dst[outIndex + col] = (byte) ((topValue * (ONE - fy) + bottomValue * fy + ONE * ONE / 2)
+                            >> (2 * FRACTION_BITS));
+                }
+            }
+        }
+    }
+
+    private final class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        StripTask(int index) {
+            this.index = index;
+        }
+
+        @Override
+        protected void compute() {
+            scaleStrip(index);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.camerapreview.core;
+
+/**
+ * YUV 帧来源，分析路径只依赖该接口，可以由相机或合成数据驱动。
+ * <p>
+ * 与 ImageReader 一样，同时在外的帧数有上限：使用方不及时 {@link YuvFrame#close()} 时来源会丢帧。
+ */
+public interface FrameSource {
+
+    interface Listener {
+        /**
+         * 在来源自己的线程上回调，使用方负责关闭帧，可以转交给其他线程后再关闭。
+         */
+        void onFrame(YuvFrame frame);
+    }
+
+    Resolution getResolution();
+
+    /**
+     * 开始产生帧，重复调用会替换 listener。
+     */
+    void start(Listener listener);
+
+    /**
+     * 停止产生帧，已交付的帧仍需由使用方关闭。
+     */
+    void stop();
+}
@@ -0,0 +1,155 @@
+package com.example.camerapreview.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 只保留最新一帧的帧处理管线。
+ * <p>
+ * 生产者（相机回调）通过 {@link #offer(Object)} 提交帧，永不阻塞；消费者在 executor 上逐帧处理。消费者忙时新帧会替换
+ * 尚未处理的旧帧，旧帧立即交给 {@link Releaser} 释放并计为丢弃，因此处理慢只会丢帧，不会占住相机的缓冲区。
+ * 每一帧都恰好被释放一次。消费者抛出的异常计入 {@link #getFailedCount()}，不会中断后续帧的交付；executor 拒绝任务
+ * （如已关闭）时待处理帧直接释放并计为丢弃。
+ */
+public class KeepLatestPipeline<T> {
+
+    public interface Consumer<T> {
+        void accept(T frame);
+    }
+
+    public interface Releaser<T> {
+        void release(T frame);
+    }
+
+    private final Executor executor;
+    private final Consumer<T> consumer;
+    private final Releaser<T> releaser;
+    private T pending;
+    private boolean draining = false;
+    private boolean closed = false;
+    private long offeredCount = 0;
+    private long deliveredCount = 0;
+    private long droppedCount = 0;
+    private long failedCount = 0;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                T frame;
+                synchronized (KeepLatestPipeline.this) {
+                    frame = pending;
+                    pending = null;
+                    if (frame == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                boolean failed = false;
+                try {
+                    consumer.accept(frame);
+                } catch (RuntimeException e) {
+                    // 异常若传出 drainTask，draining 不会复位，之后提交的帧再也不会被调度
+                    failed = true;
+                } finally {
+                    releaser.release(frame);
+                    synchronized (KeepLatestPipeline.this) {
+                        deliveredCount++;
+                        if (failed) {
+                            failedCount++;
+                        }
+                    }
+                }
+            }
+        }
+    };
+
+    public KeepLatestPipeline(Executor executor, Consumer<T> consumer, Releaser<T> releaser) {
+        this.executor = executor;
+        this.consumer = consumer;
+        this.releaser = releaser;
+    }
+
+    /**
+     * 提交一帧。管线关闭后提交的帧直接释放。
+     */
+    public void offer(T frame) {
+        T dropped;
+        boolean schedule = false;
+        synchronized (this) {
+            offeredCount++;
+            if (closed) {
+                dropped = frame;
+            } else {
+                dropped = pending;
+                pending = frame;
+                if (!draining) {
+                    draining = true;
+                    schedule = true;
+                }
+            }
+            if (dropped != null) {
+                droppedCount++;
+            }
+        }
+        if (dropped != null) {
+            releaser.release(dropped);
+        }
+        if (schedule) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // draining 不复位的话之后的帧永远不会被调度，待处理帧也不会被释放
+                T rejected;
+                synchronized (this) {
+                    draining = false;
+                    rejected = pending;
+                    pending = null;
+                    if (rejected != null) {
+                        droppedCount++;
+                    }
+                }
+                if (rejected != null) {
+                    releaser.release(rejected);
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭管线并释放尚未处理的帧，正在处理的帧在处理完成后释放。
+     */
+    public void close() {
+        T dropped;
+        synchronized (this) {
+            closed = true;
+            dropped = pending;
+            pending = null;
+            if (dropped != null) {
+                droppedCount++;
+            }
+        }
+        if (dropped != null) {
+            releaser.release(dropped);
+        }
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 消费者抛出异常的帧数，这些帧也计入 {@link #getDeliveredCount()}。
+     */
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+}
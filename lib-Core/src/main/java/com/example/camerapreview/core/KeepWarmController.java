@@ -0,0 +1,174 @@
+package com.example.camerapreview.core;
+
+/**
+ * 相机保温控制。
+ * <p>
+ * 界面不可见时（onStop）不立即关闭相机，而是暂停重复请求并启动宽限计时；宽限期内回到前台（onStart）只需恢复
+ * 重复请求，计时到期才真正关闭相机。宽限时间为 0 时退化为每次 onStop 都关闭相机。
+ * <p>
+ * 所有方法都是线程安全的，{@link Camera} 的各方法在持有锁时调用，实现中应只投递任务而不阻塞。
+ */
+public class KeepWarmController {
+
+    /**
+     * 被控制的相机。
+     */
+    public interface Camera {
+        void open();
+
+        /**
+         * 停止重复请求，保留相机设备与会话。
+         */
+        void pause();
+
+        void resume();
+
+        void close();
+    }
+
+    /**
+     * 延时任务调度，例如由相机线程的 Handler 实现。
+     */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMillis);
+
+        void cancel(Runnable task);
+    }
+
+    private enum State {
+        CLOSED,
+        RUNNING,
+        PAUSED
+    }
+
+    private final Camera camera;
+    private final Scheduler scheduler;
+    private long graceMillis;
+    private State state = State.CLOSED;
+    private int openCount = 0;
+    private int resumeCount = 0;
+
+    private final Runnable expireTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (KeepWarmController.this) {
+                if (state == State.PAUSED) {
+                    camera.close();
+                    state = State.CLOSED;
+                }
+            }
+        }
+    };
+
+    public KeepWarmController(Camera camera, Scheduler scheduler, long graceMillis) {
+        this.camera = camera;
+        this.scheduler = scheduler;
+        setGraceMillis(graceMillis);
+    }
+
+    public synchronized void setGraceMillis(long graceMillis) {
+        if (graceMillis < 0) {
+            throw new IllegalArgumentException("Grace period cannot be negative.");
+        }
+        this.graceMillis = graceMillis;
+    }
+
+    public synchronized long getGraceMillis() {
+        return graceMillis;
+    }
+
+    /**
+     * 需要预览时调用：宽限期内恢复已有会话，否则打开相机。
+     */
+    public synchronized void start() {
+        switch (state) {
+            case PAUSED:
+                scheduler.cancel(expireTask);
+                camera.resume();
+                resumeCount++;
+                break;
+            case CLOSED:
+                camera.open();
+                openCount++;
+                break;
+            default:
+        }
+        state = State.RUNNING;
+    }
+
+    /**
+     * 相机在保温期间出错或断开、已被关闭后回到前台时调用：重新打开相机，取消宽限计时并回到运行状态，避免旧的计时
+     * 到期后关闭新打开的相机。也用于之前因缺少权限等原因未能打开时重试。
+     */
+    public synchronized void reopen() {
+        scheduler.cancel(expireTask);
+        camera.open();
+        if (state == State.PAUSED) {
+            openCount++;
+        }
+        state = State.RUNNING;
+    }
+
+    /**
+     * 界面不可见时调用：暂停预览并开始宽限计时。
+     */
+    public synchronized void stop() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        scheduler.cancel(expireTask);
+        if (graceMillis == 0) {
+            camera.close();
+            state = State.CLOSED;
+        } else {
+            if (state == State.RUNNING) {
+                camera.pause();
+            }
+            // 已由 pause() 暂停时从现在开始计时
+            scheduler.schedule(expireTask, graceMillis);
+            state = State.PAUSED;
+        }
+    }
+
+    /**
+     * 暂停预览并保持相机打开，直到 {@link #start()} 恢复或 {@link #release()} 关闭，不启动宽限计时。
+     * 例如用户解绑：恢复时只需重新发出重复请求。之后的 {@link #stop()} 仍会开始宽限计时。
+     */
+    public synchronized void pause() {
+        if (state == State.RUNNING) {
+            camera.pause();
+            state = State.PAUSED;
+        } else if (state == State.PAUSED) {
+            scheduler.cancel(expireTask);
+        }
+    }
+
+    /**
+     * 立即关闭相机，例如用户解绑或 Activity 销毁。
+     */
+    public synchronized void release() {
+        scheduler.cancel(expireTask);
+        if (state != State.CLOSED) {
+            camera.close();
+            state = State.CLOSED;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    /**
+     * 实际打开相机的次数。
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * 在宽限期内恢复、因而省去一次打开相机的次数。
+     */
+    public synchronized int getResumeCount() {
+        return resumeCount;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.camerapreview.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多相机同时预览。
+ * <p>
+ * 相机通过 {@link Backend} 访问，Camera2 实现见 lib-Camera2 的 {@code Camera2MultiCameraBackend}，测试中可以换成
+ * 模拟多台设备的实现。打开前按 {@link Backend#getConcurrentCameraIds()} 检查这些相机能否同时工作；总像素吞吐预算
+ * 平均分给各相机，各自在预算内选择预览尺寸。每个相机的回调在各自的线程上执行，帧率分别统计。
+ */
+public class MultiCameraManager {
+
+    public interface Backend {
+        List<String> getCameraIds();
+
+        /**
+         * 可以同时打开的相机组合（API 30 起的 getConcurrentCameraIds），系统未提供时返回 null，此时不做检查。
+         */
+        List<Set<String>> getConcurrentCameraIds();
+
+        List<ResolutionPolicyEngine.Candidate> getPreviewCandidates(String cameraId);
+
+        /**
+         * 打开相机并以指定尺寸开始预览，callback 在该相机专用的线程上回调。
+         */
+        void open(String cameraId, Resolution size, Callback callback);
+
+        /**
+         * 关闭相机，之后不应再有回调。
+         */
+        void close(String cameraId);
+    }
+
+    public interface Callback {
+        void onStreaming();
+
+        /**
+         * 一帧到达，时间戳需来自单调时钟。
+         */
+        void onFrame(long timestampNs);
+
+        void onError(String message);
+    }
+
+    public enum State {
+        OPENING,
+        STREAMING,
+        ERROR,
+        CLOSED
+    }
+
+    /**
+     * 单个相机的预览状态与帧统计。
+     */
+    public static final class Stream {
+        private final String cameraId;
+        private final ResolutionPolicyEngine.Decision decision;
+        private final FrameMetrics metrics = new FrameMetrics();
+        private volatile State state = State.OPENING;
+        private volatile String error;
+
+        Stream(String cameraId, ResolutionPolicyEngine.Decision decision) {
+            this.cameraId = cameraId;
+            this.decision = decision;
+        }
+
+        public String getCameraId() {
+            return cameraId;
+        }
+
+        public ResolutionPolicyEngine.Decision getDecision() {
+            return decision;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public FrameMetrics getMetrics() {
+            return metrics;
+        }
+
+        public double getFps() {
+            return metrics.snapshot().getFps();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %s %s %.1ffps", cameraId, decision.getSize(), state, getFps());
+        }
+    }
+
+    private final Backend backend;
+    private final int targetFps;
+    private final long pixelRateBudget;
+    private final Map<String, Stream> streams = new LinkedHashMap<>();
+
+    /**
+     * @param pixelRateBudget 所有相机合计的 宽 × 高 × 帧率 上限
+     */
+    public MultiCameraManager(Backend backend, int targetFps, long pixelRateBudget) {
+        if (pixelRateBudget <= 0) {
+            throw new IllegalArgumentException("Pixel rate budget must be positive.");
+        }
+        this.backend = backend;
+        this.targetFps = targetFps;
+        this.pixelRateBudget = pixelRateBudget;
+    }
+
+    /**
+     * 选出最多 maxCount 个可以同时打开的相机，取相机数最多的组合，按 {@link Backend#getCameraIds()} 的顺序返回。
+     * 系统未提供组合时直接取前 maxCount 个。
+     */
+    public List<String> selectConcurrentCameras(int maxCount) {
+        List<String> cameraIds = backend.getCameraIds();
+        List<Set<String>> combinations = backend.getConcurrentCameraIds();
+        List<String> selected = new ArrayList<>();
+        Set<String> best = null;
+        if (combinations != null) {
+            for (Set<String> combination : combinations) {
+                if (best == null || combination.size() > best.size()) {
+                    best = combination;
+                }
+            }
+            if (best == null || best.isEmpty()) {
+                // 不支持同时打开，只用一个相机
+                maxCount = Math.min(maxCount, 1);
+            }
+        }
+        for (String cameraId : cameraIds) {
+            if (selected.size() >= maxCount) {
+                break;
+            }
+            if (best == null || best.isEmpty() || best.contains(cameraId)) {
+                selected.add(cameraId);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 同时打开多个相机并开始预览。
+     *
+     * @throws IllegalArgumentException 这些相机不能同时工作
+     */
+    public synchronized void start(List<String> cameraIds, int viewWidth, int viewHeight) {
+        if (!streams.isEmpty()) {
+            throw new IllegalStateException("Already started.");
+        }
+        if (cameraIds.isEmpty()) {
+            throw new IllegalArgumentException("No cameras.");
+        }
+        Set<String> unique = new HashSet<>(cameraIds);
+        if (unique.size() != cameraIds.size()) {
+            throw new IllegalArgumentException("Duplicate cameras: " + cameraIds);
+        }
+        if (!isConcurrent(unique)) {
+            throw new IllegalArgumentException("Cameras " + cameraIds + " cannot stream concurrently.");
+        }
+        // 每个相机分得相同的预算，预算内没有尺寸时退而选最小的
+        ResolutionPolicyEngine policy = new ResolutionPolicyEngine(targetFps,
+                ResolutionStrategies.pixelRateBudget(pixelRateBudget / cameraIds.size()),
+                ResolutionStrategies.smallest());
+        for (String cameraId : cameraIds) {
+            streams.put(cameraId, new Stream(cameraId,
+                    policy.select(backend.getPreviewCandidates(cameraId), viewWidth, viewHeight)));
+        }
+        for (final Stream stream : streams.values()) {
+            backend.open(stream.cameraId, stream.decision.getSize(), new Callback() {
+                @Override
+                public void onStreaming() {
+                    if (stream.state == State.OPENING) {
+                        stream.state = State.STREAMING;
+                    }
+                }
+
+                @Override
+                public void onFrame(long timestampNs) {
+                    stream.metrics.onFrame(timestampNs);
+                }
+
+                @Override
+                public void onError(String message) {
+                    stream.error = message;
+                    stream.state = State.ERROR;
+                }
+            });
+        }
+    }
+
+    /**
+     * 关闭所有相机。
+     */
+    public synchronized void stop() {
+        for (Stream stream : streams.values()) {
+            backend.close(stream.cameraId);
+            stream.state = State.CLOSED;
+        }
+        streams.clear();
+    }
+
+    public synchronized List<Stream> getStreams() {
+        return new ArrayList<>(streams.values());
+    }
+
+    public synchronized Stream getStream(String cameraId) {
+        return streams.get(cameraId);
+    }
+
+    private boolean isConcurrent(Set<String> cameraIds) {
+        List<Set<String>> combinations = backend.getConcurrentCameraIds();
+        if (combinations == null || cameraIds.size() == 1) {
+            return true;
+        }
+        for (Set<String> combination : combinations) {
+            if (combination.containsAll(cameraIds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Stream stream : streams.values()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(stream);
+        }
+        return builder.toString();
+    }
+}
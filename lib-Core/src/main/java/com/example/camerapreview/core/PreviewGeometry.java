@@ -0,0 +1,66 @@
+package com.example.camerapreview.core;
+
+/**
+ * 预览相关的尺寸计算：居中适配变换与按宽高比测量。预览尺寸选择见 {@link ResolutionPolicyEngine}。
+ * <p>
+ * 从各 MainActivity 与 AutoFitTextureView 中抽出，不依赖 Android，可在 JVM 上测试与基准测试。
+ */
+public final class PreviewGeometry {
+
+    private PreviewGeometry() {
+    }
+
+    /**
+     * 计算把预览画面完整显示在 View 中并居中的变换（FIT_CENTER）。预览尺寸为相机输出方向，横向时先交换宽高。
+     * <p>
+     * 结果依次写入 {@code out[0..3]}：translateX、translateY、scaleX、scaleY，对应
+     * {@code matrix.preTranslate(tx, ty); matrix.preScale(sx, sy)}。
+     */
+    public static void fitCenter(int previewWidth, int previewHeight, int viewWidth, int viewHeight, float[] out) {
+        int contentWidth = previewWidth;
+        int contentHeight = previewHeight;
+        if (contentWidth > contentHeight) {
+            // swap
+            contentWidth ^= contentHeight;
+            contentHeight ^= contentWidth;
+            contentWidth ^= contentHeight;
+        }
+
+        float widthRatio = (float) contentWidth / viewWidth;
+        float heightRatio = (float) contentHeight / viewHeight;
+        if (widthRatio > heightRatio) {
+            // outputView 放大时宽先占满屏幕或缩小时高先占满屏幕
+            contentHeight = viewWidth * contentHeight / contentWidth;
+            contentWidth = viewWidth;
+        } else {
+            // outputView 放大时高先占满屏幕或缩小时宽先占满屏幕
+            contentWidth = viewHeight * contentWidth / contentHeight;
+            contentHeight = viewHeight;
+        }
+
+        // 将 outputView 和 textureView 中心点重合
+        out[0] = (float) (viewWidth - contentWidth) / 2;
+        out[1] = (float) (viewHeight - contentHeight) / 2;
+        // 缩放
+        out[2] = (float) contentWidth / viewWidth;
+        out[3] = (float) contentHeight / viewHeight;
+    }
+
+    /**
+     * 在给定的最大宽高内按宽高比测量，结果依次写入 {@code out[0]}、{@code out[1]}。宽高比为 0 时直接使用最大宽高。
+     */
+    public static void measureAspectRatio(int width, int height, int ratioWidth, int ratioHeight, int[] out) {
+        if (ratioWidth == 0 || ratioHeight == 0) {
+            out[0] = width;
+            out[1] = height;
+        } else if (width < height * ratioWidth / ratioHeight) {
+            //横屏
+            out[0] = width;
+            out[1] = width * ratioHeight / ratioWidth;
+        } else {
+            //竖屏
+            out[0] = height * ratioWidth / ratioHeight;
+            out[1] = height;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.camerapreview.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 预览延迟估计：从传感器曝光开始到帧被送入显示队列的耗时。
+ * <p>
+ * 相机回调中记录每帧的传感器时间戳（SENSOR_TIMESTAMP），预览 Surface 更新时用 SurfaceTexture 的时间戳找到对应的帧，
+ * 以当前时间减去传感器时间戳作为该帧的延迟。两者需来自同一时钟：SENSOR_INFO_TIMESTAMP_SOURCE 为 REALTIME 时
+ * 可与 elapsedRealtimeNanos 比较，为 UNKNOWN 时只能假定为单调时钟，结果标记为未验证，并丢弃明显不合理的样本。
+ * <p>
+ * 数据保存在固定大小的基本类型数组中，记录时不分配内存。
+ */
+public class PreviewLatencyEstimator {
+
+    public static final int DEFAULT_CAPACITY = 128;
+    // 等待匹配的传感器时间戳数，超过时最早的被覆盖
+    private static final int PENDING = 16;
+    // 超过该值或为负时认为时钟不一致
+    private static final long MAX_PLAUSIBLE_NS = 1_000_000_000L;
+
+    private final long[] pending = new long[PENDING];
+    private final long[] latencies;
+    private int pendingIndex = 0;
+    private int latencyIndex = 0;
+    private int latencySamples = 0;
+    private long matchedCount = 0;
+    private long unmatchedCount = 0;
+    private long implausibleCount = 0;
+    private boolean clockVerified = false;
+
+    public PreviewLatencyEstimator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PreviewLatencyEstimator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        latencies = new long[capacity];
+    }
+
+    /**
+     * 传感器时间戳是否确认与显示侧的时钟相同（SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME）。
+     */
+    public synchronized void setClockVerified(boolean clockVerified) {
+        this.clockVerified = clockVerified;
+    }
+
+    /**
+     * 记录一帧的传感器时间戳，在相机回调中调用。
+     */
+    public synchronized void onSensorTimestamp(long sensorTimestampNs) {
+        pending[pendingIndex] = sensorTimestampNs;
+        pendingIndex = (pendingIndex + 1) % PENDING;
+    }
+
+    /**
+     * 预览帧送入显示队列时调用。
+     *
+     * @param textureTimestampNs SurfaceTexture.getTimestamp()，相机输出时等于该帧的传感器时间戳
+     * @param nowNs              当前时间，需与传感器时间戳同一时钟
+     */
+    public synchronized void onFrameQueued(long textureTimestampNs, long nowNs) {
+        int match = -1;
+        for (int i = 0; i < PENDING; i++) {
+            if (pending[i] == textureTimestampNs && textureTimestampNs != 0) {
+                match = i;
+                break;
+            }
+        }
+        if (match < 0) {
+            unmatchedCount++;
+            return;
+        }
+        pending[match] = 0;
+        matchedCount++;
+        long latency = nowNs - textureTimestampNs;
+        if (latency < 0 || latency > MAX_PLAUSIBLE_NS) {
+            implausibleCount++;
+            return;
+        }
+        latencies[latencyIndex] = latency;
+        latencyIndex = (latencyIndex + 1) % latencies.length;
+        if (latencySamples < latencies.length) {
+            latencySamples++;
+        }
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(pending, 0);
+        pendingIndex = 0;
+        latencyIndex = 0;
+        latencySamples = 0;
+        matchedCount = 0;
+        unmatchedCount = 0;
+        implausibleCount = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(latencies, latencySamples);
+        Arrays.sort(sorted);
+        return new Snapshot(clockVerified, matchedCount, unmatchedCount, implausibleCount,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                latencySamples == 0 ? 0 : sorted[latencySamples - 1]);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * 某一时刻的统计快照，百分位基于最近 capacity 个样本。
+     */
+    public static final class Snapshot {
+        private final boolean clockVerified;
+        private final long matchedCount;
+        private final long unmatchedCount;
+        private final long implausibleCount;
+        private final long p50Ns;
+        private final long p90Ns;
+        private final long p99Ns;
+        private final long maxNs;
+
+        Snapshot(boolean clockVerified, long matchedCount, long unmatchedCount, long implausibleCount, long p50Ns,
+                 long p90Ns, long p99Ns, long maxNs) {
+            this.clockVerified = clockVerified;
+            this.matchedCount = matchedCount;
+            this.unmatchedCount = unmatchedCount;
+            this.implausibleCount = implausibleCount;
+            this.p50Ns = p50Ns;
+            this.p90Ns = p90Ns;
+            this.p99Ns = p99Ns;
+            this.maxNs = maxNs;
+        }
+
+        public boolean isClockVerified() {
+            return clockVerified;
+        }
+
+        public long getMatchedCount() {
+            return matchedCount;
+        }
+
+        /**
+         * 找不到对应传感器时间戳的帧数，例如时间戳来自其他生产者。
+         */
+        public long getUnmatchedCount() {
+            return unmatchedCount;
+        }
+
+        /**
+         * 延迟为负或超过 1 秒而被丢弃的样本数，通常说明时钟不一致。
+         */
+        public long getImplausibleCount() {
+            return implausibleCount;
+        }
+
+        public long getP50Ns() {
+            return p50Ns;
+        }
+
+        public long getP90Ns() {
+            return p90Ns;
+        }
+
+        public long getP99Ns() {
+            return p99Ns;
+        }
+
+        public long getMaxNs() {
+            return maxNs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "latency p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms matched=%d unmatched=%d implausible=%d%s",
+                    p50Ns / 1e6, p90Ns / 1e6, p99Ns / 1e6, maxNs / 1e6, matchedCount, unmatchedCount,
+                    implausibleCount, clockVerified ? "" : " (clock unverified)");
+        }
+    }
+}
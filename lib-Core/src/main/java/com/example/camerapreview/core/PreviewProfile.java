@@ -0,0 +1,81 @@
+package com.example.camerapreview.core;
+
+/**
+ * 预览性能档位，决定自动曝光目标帧率范围以及降噪、锐化等逐帧处理的取舍。
+ * <p>
+ * 这里只包含与平台无关的帧率范围选择，各处理模式的取值由 Camera2 层按档位设置。
+ */
+public enum PreviewProfile {
+    /**
+     * 低延迟：取最高帧率并尽量固定帧率，逐帧处理只用不降低帧率的 FAST 模式或关闭。
+     */
+    LOW_LATENCY,
+    /**
+     * 均衡：最高 30 fps，暗光下允许降低帧率，处理模式为 FAST。
+     */
+    BALANCED,
+    /**
+     * 低功耗：取不低于 15 fps 的最低帧率上限，允许进一步降帧，能关闭的处理都关闭。
+     */
+    LOW_POWER;
+
+    private static final int BALANCED_MAX_FPS = 30;
+    private static final int LOW_POWER_MAX_FPS = 15;
+
+    /**
+     * 从相机支持的帧率范围中选择，{@code ranges[i]} 为 {下限, 上限}。
+     *
+     * @return 选中的下标，ranges 为空时返回 -1
+     */
+    public int chooseFpsRange(int[][] ranges) {
+        int best = -1;
+        for (int i = 0; i < ranges.length; i++) {
+            if (best < 0 || isBetter(ranges[i], ranges[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private boolean isBetter(int[] range, int[] best) {
+        switch (this) {
+            case LOW_LATENCY:
+                // 上限最高，其次下限最高（帧率越固定，曝光时间越短）
+                if (range[1] != best[1]) {
+                    return range[1] > best[1];
+                }
+                return range[0] > best[0];
+            case BALANCED:
+                return isBetterCapped(range, best, BALANCED_MAX_FPS);
+            case LOW_POWER:
+            default:
+                return isBetterFloor(range, best, LOW_POWER_MAX_FPS);
+        }
+    }
+
+    // 上限不超过 cap 时越接近 cap 越好，都超过时越小越好；上限相同时下限越低越好
+    private static boolean isBetterCapped(int[] range, int[] best, int cap) {
+        if (range[1] != best[1]) {
+            boolean rangeFits = range[1] <= cap;
+            boolean bestFits = best[1] <= cap;
+            if (rangeFits != bestFits) {
+                return rangeFits;
+            }
+            return rangeFits ? range[1] > best[1] : range[1] < best[1];
+        }
+        return range[0] < best[0];
+    }
+
+    // 上限不低于 floor 时越接近 floor 越好，都低于时越大越好；上限相同时下限越低越好
+    private static boolean isBetterFloor(int[] range, int[] best, int floor) {
+        if (range[1] != best[1]) {
+            boolean rangeFits = range[1] >= floor;
+            boolean bestFits = best[1] >= floor;
+            if (rangeFits != bestFits) {
+                return rangeFits;
+            }
+            return rangeFits ? range[1] < best[1] : range[1] > best[1];
+        }
+        return range[0] < best[0];
+    }
+}
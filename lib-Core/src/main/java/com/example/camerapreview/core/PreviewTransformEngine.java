@@ -0,0 +1,149 @@
+package com.example.camerapreview.core;
+
+/**
+ * TextureView 预览变换矩阵。
+ * <p>
+ * 相机输出到 SurfaceTexture 时已按传感器方向（前置还包括镜像）转为设备自然方向，未设置变换时画面被拉伸到 View
+ * 大小，且只在屏幕方向为 0 时是正的。这里先撤销拉伸，再按屏幕方向反向旋转，最后等比缩放使画面完整显示并居中
+ * （FIT_CENTER）。
+ * <p>
+ * 预览尺寸或 View 尺寸变化时一次性算出 4 个屏幕方向 × 前后置共 8 个矩阵，屏幕旋转时只需取出对应的矩阵，
+ * 不重新计算也不重新打开相机。矩阵按 {@code android.graphics.Matrix#setValues} 的 9 元素行优先顺序存放。
+ * 非线程安全，应在 UI 线程使用。
+ */
+public class PreviewTransformEngine {
+
+    public enum Facing {
+        BACK,
+        FRONT
+    }
+
+    private static final int ROTATIONS = 4;
+
+    private final int[] sensorOrientations = {90, 270};
+    private final float[][] matrices = new float[Facing.values().length * ROTATIONS][9];
+    private int previewWidth;
+    private int previewHeight;
+    private int viewWidth;
+    private int viewHeight;
+    private boolean valid = false;
+    private int computeCount = 0;
+
+    /**
+     * 设置传感器方向（SENSOR_ORIENTATION），与当前值不同时重新计算该朝向的矩阵。
+     */
+    public void setSensorOrientation(Facing facing, int degrees) {
+        if (degrees % 90 != 0) {
+            throw new IllegalArgumentException("Sensor orientation must be a multiple of 90: " + degrees);
+        }
+        int normalized = ((degrees % 360) + 360) % 360;
+        if (sensorOrientations[facing.ordinal()] != normalized) {
+            sensorOrientations[facing.ordinal()] = normalized;
+            if (valid) {
+                compute(facing);
+            }
+        }
+    }
+
+    /**
+     * 更新预览尺寸（相机输出方向）与 View 尺寸。
+     *
+     * @return 尺寸有变化并已重新计算时返回 true
+     */
+    public boolean update(int previewWidth, int previewHeight, int viewWidth, int viewHeight) {
+        if (previewWidth <= 0 || previewHeight <= 0 || viewWidth <= 0 || viewHeight <= 0) {
+            return false;
+        }
+        if (valid && previewWidth == this.previewWidth && previewHeight == this.previewHeight
+                && viewWidth == this.viewWidth && viewHeight == this.viewHeight) {
+            return false;
+        }
+        this.previewWidth = previewWidth;
+        this.previewHeight = previewHeight;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        valid = true;
+        for (Facing facing : Facing.values()) {
+            compute(facing);
+        }
+        return true;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * 取出预先算好的矩阵，调用方不得修改。
+     *
+     * @param rotation 屏幕方向，取值同 {@code Surface.ROTATION_0..ROTATION_270}
+     */
+    public float[] getMatrix(Facing facing, int rotation) {
+        if (!valid) {
+            throw new IllegalStateException("Sizes not set.");
+        }
+        return matrices[facing.ordinal() * ROTATIONS + (rotation & 3)];
+    }
+
+    /**
+     * 重新计算矩阵的次数（每个朝向计一次），用于确认旋转时没有重复计算。
+     */
+    public int getComputeCount() {
+        return computeCount;
+    }
+
+    private void compute(Facing facing) {
+        computeCount++;
+        // 自然方向下画面的宽高：传感器横置（90/270）时交换
+        boolean sensorSwapped = sensorOrientations[facing.ordinal()] % 180 != 0;
+        float naturalWidth = sensorSwapped ? previewHeight : previewWidth;
+        float naturalHeight = sensorSwapped ? previewWidth : previewHeight;
+        float centerX = viewWidth / 2f;
+        float centerY = viewHeight / 2f;
+        for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+            // 撤销拉伸，使画面恢复原始宽高
+            float stretchX = naturalWidth / viewWidth;
+            float stretchY = naturalHeight / viewHeight;
+            // 按屏幕方向反向旋转，cos/sin 取精确值
+            int cos;
+            int sin;
+            switch (rotation) {
+                case 1:
+                    cos = 0;
+                    sin = -1;
+                    break;
+                case 2:
+                    cos = -1;
+                    sin = 0;
+                    break;
+                case 3:
+                    cos = 0;
+                    sin = 1;
+                    break;
+                default:
+                    cos = 1;
+                    sin = 0;
+            }
+            // 旋转后画面在屏幕上的宽高，等比缩放到完整放入 View
+            float displayedWidth = rotation % 2 == 0 ? naturalWidth : naturalHeight;
+            float displayedHeight = rotation % 2 == 0 ? naturalHeight : naturalWidth;
+            float scale = Math.min(viewWidth / displayedWidth, viewHeight / displayedHeight);
+
+            // 以 View 中心为原点：scale * R * diag(stretchX, stretchY)
+            float a = scale * cos * stretchX;
+            float b = -scale * sin * stretchY;
+            float d = scale * sin * stretchX;
+            float e = scale * cos * stretchY;
+            float[] values = matrices[facing.ordinal() * ROTATIONS + rotation];
+            values[0] = a;
+            values[1] = b;
+            values[2] = centerX - a * centerX - b * centerY;
+            values[3] = d;
+            values[4] = e;
+            values[5] = centerY - d * centerX - e * centerY;
+            values[6] = 0;
+            values[7] = 0;
+            values[8] = 1;
+        }
+    }
+}
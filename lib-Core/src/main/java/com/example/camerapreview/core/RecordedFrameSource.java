@@ -0,0 +1,226 @@
+package com.example.camerapreview.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回放 {@link FrameRecorder} 录制的帧，不依赖 Android，可在 JVM / CI 上把设备录制的会话当作回归基准。
+ * <p>
+ * 各段文件以只读方式映射，交付的 YuvFrame 直接引用映射内存，不拷贝；时间戳为录制时的原始值。
+ * <ul>
+ * <li>{@link Speed#ORIGINAL}：按录制时的帧间隔交付，同时在外的帧达到 maxFrames 时丢帧，与相机的行为相同；</li>
+ * <li>{@link Speed#MAXIMUM}：尽快交付，同时在外的帧达到 maxFrames 时等待使用方关闭，每一帧都按顺序交付，结果可复现。</li>
+ * </ul>
+ * 每次 {@link #start(Listener)} 从头回放一遍。
+ */
+public class RecordedFrameSource implements FrameSource {
+
+    public enum Speed {
+        ORIGINAL,
+        MAXIMUM
+    }
+
+    private final Speed speed;
+    private final int maxFrames;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    // 第 i 帧所在的段与记录偏移
+    private final int[] frameSegments;
+    private final int[] frameOffsets;
+    private final Resolution resolution;
+    private final YuvFrame.Recycler recycler = new YuvFrame.Recycler() {
+        @Override
+        public void recycle(YuvFrame frame) {
+            synchronized (RecordedFrameSource.this) {
+                outstanding--;
+                RecordedFrameSource.this.notifyAll();
+            }
+        }
+    };
+    private Thread thread;
+    private volatile Listener listener;
+    private CountDownLatch finished = new CountDownLatch(0);
+    private int outstanding = 0;
+    // stop 时加一，使已停止的回放线程不再交付帧
+    private int generation = 0;
+    private long producedCount = 0;
+    private long droppedCount = 0;
+
+    public RecordedFrameSource(File directory, Speed speed, int maxFrames) throws IOException {
+        if (maxFrames <= 0) {
+            throw new IllegalArgumentException("maxFrames must be positive.");
+        }
+        this.speed = speed;
+        this.maxFrames = maxFrames;
+        List<int[]> index = new ArrayList<>();
+        for (int i = 0; FrameRecorder.segmentFile(directory, i).isFile(); i++) {
+            try (FileChannel channel = FileChannel.open(FrameRecorder.segmentFile(directory, i).toPath(),
+                    StandardOpenOption.READ)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                if (segment.remaining() < FrameRecorder.FILE_HEADER_BYTES
+                        || segment.getInt(0) != FrameRecorder.MAGIC || segment.getInt(4) != FrameRecorder.VERSION) {
+                    throw new IOException("Not a frame recording: " + FrameRecorder.segmentFile(directory, i));
+                }
+                int offset = FrameRecorder.FILE_HEADER_BYTES;
+                while (offset + FrameRecorder.RECORD_HEADER_BYTES <= segment.limit()) {
+                    index.add(new int[]{segments.size(), offset});
+                    offset += FrameRecorder.RECORD_HEADER_BYTES + segment.getInt(offset + 28)
+                            + segment.getInt(offset + 32) + segment.getInt(offset + 36);
+                }
+                if (offset != segment.limit()) {
+                    throw new IOException("Truncated recording: " + FrameRecorder.segmentFile(directory, i));
+                }
+                segments.add(segment);
+            }
+        }
+        if (index.isEmpty()) {
+            throw new IOException("No frames in " + directory);
+        }
+        frameSegments = new int[index.size()];
+        frameOffsets = new int[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            frameSegments[i] = index.get(i)[0];
+            frameOffsets[i] = index.get(i)[1];
+        }
+        ByteBuffer first = segments.get(frameSegments[0]);
+        resolution = new Resolution(first.getInt(frameOffsets[0] + 8), first.getInt(frameOffsets[0] + 12));
+    }
+
+    /**
+     * 第一帧的分辨率。
+     */
+    @Override
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public int getFrameCount() {
+        return frameOffsets.length;
+    }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        this.listener = listener;
+        if (thread == null) {
+            finished = new CountDownLatch(1);
+            thread = new Thread(this::replay, "RecordedCamera");
+            thread.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        listener = null;
+        generation++;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        notifyAll();
+    }
+
+    /**
+     * 等待本次回放的所有帧交付完毕。
+     */
+    public boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        CountDownLatch latch;
+        synchronized (this) {
+            latch = finished;
+        }
+        return latch.await(timeout, unit);
+    }
+
+    public synchronized long getProducedCount() {
+        return producedCount;
+    }
+
+    /**
+     * ORIGINAL 速度下因使用方未及时关闭帧而丢弃的帧数。
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    private void replay() {
+        CountDownLatch latch;
+        int replayGeneration;
+        synchronized (this) {
+            latch = finished;
+            replayGeneration = generation;
+        }
+        try {
+            long startNs = System.nanoTime();
+            long firstTimestampNs = timestampAt(0);
+            for (int i = 0; i < frameOffsets.length; i++) {
+                if (speed == Speed.ORIGINAL) {
+                    long dueNs = startNs + (timestampAt(i) - firstTimestampNs);
+                    long waitNs;
+                    while ((waitNs = dueNs - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                        LockSupport.parkNanos(waitNs);
+                    }
+                }
+                Listener current;
+                synchronized (this) {
+                    while (speed == Speed.MAXIMUM && outstanding >= maxFrames && generation == replayGeneration) {
+                        wait();
+                    }
+                    current = listener;
+                    if (current == null || generation != replayGeneration) {
+                        return;
+                    }
+                    if (outstanding >= maxFrames) {
+                        droppedCount++;
+                        continue;
+                    }
+                    outstanding++;
+                    producedCount++;
+                }
+                current.onFrame(frameAt(i));
+            }
+        } catch (InterruptedException e) {
+            // stop() 结束回放
+        } finally {
+            synchronized (this) {
+                if (thread == Thread.currentThread()) {
+                    thread = null;
+                }
+            }
+            latch.countDown();
+        }
+    }
+
+    private long timestampAt(int frame) {
+        return segments.get(frameSegments[frame]).getLong(frameOffsets[frame]);
+    }
+
+    // 三个平面直接引用映射内存
+    private YuvFrame frameAt(int frame) {
+        ByteBuffer segment = segments.get(frameSegments[frame]);
+        int offset = frameOffsets[frame];
+        int yLength = segment.getInt(offset + 28);
+        int uLength = segment.getInt(offset + 32);
+        int vLength = segment.getInt(offset + 36);
+        int planes = offset + FrameRecorder.RECORD_HEADER_BYTES;
+        return new YuvFrame(segment.getInt(offset + 8), segment.getInt(offset + 12),
+                slice(segment, planes, yLength), slice(segment, planes + yLength, uLength),
+                slice(segment, planes + yLength + uLength, vLength),
+                segment.getInt(offset + 16), segment.getInt(offset + 20), segment.getInt(offset + 24),
+                segment.getLong(offset), recycler);
+    }
+
+    private static ByteBuffer slice(ByteBuffer segment, int offset, int length) {
+        ByteBuffer plane = segment.duplicate();
+        plane.position(offset).limit(offset + length);
+        return plane.slice();
+    }
+}
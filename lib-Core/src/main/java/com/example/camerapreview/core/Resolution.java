@@ -0,0 +1,50 @@
+package com.example.camerapreview.core;
+
+/**
+ * 不依赖 Android 的宽高，用于在 JVM 上测试与基准测试尺寸相关的计算。
+ */
+public final class Resolution {
+
+    private final int width;
+    private final int height;
+
+    public Resolution(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getArea() {
+        return (long) width * height;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Resolution)) {
+            return false;
+        }
+        Resolution other = (Resolution) obj;
+        return width == other.width && height == other.height;
+    }
+
+    @Override
+    public int hashCode() {
+        // 与 android.util.Size 相同
+        return height ^ ((width << (Integer.SIZE / 2)) | (width >>> (Integer.SIZE / 2)));
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height;
+    }
+}
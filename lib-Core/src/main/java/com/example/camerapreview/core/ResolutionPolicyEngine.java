@@ -0,0 +1,153 @@
+package com.example.camerapreview.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预览尺寸选择策略引擎。
+ * <p>
+ * 先按 {@code getOutputMinFrameDuration} 排除达不到目标帧率的尺寸，再依次尝试各个 {@link Strategy}，取第一个给出
+ * 结果的策略；都没有结果时选取能达到帧率的最大尺寸。选择结果连同所用策略一起以 {@link Decision} 返回。
+ * <p>
+ * View 与相机输出方向可能不同，各策略按长边对长边、短边对短边比较。
+ */
+public class ResolutionPolicyEngine {
+
+    public interface Strategy {
+        String getName();
+
+        /**
+         * 从候选尺寸中选择，没有合适的尺寸时返回 null，交给下一个策略。
+         *
+         * @param candidates 能达到目标帧率的尺寸，不为空
+         */
+        Resolution select(List<Candidate> candidates, int viewWidth, int viewHeight, int targetFps);
+    }
+
+    public static final String FALLBACK = "fallback";
+
+    private final int targetFps;
+    private final List<Strategy> strategies;
+
+    public ResolutionPolicyEngine(int targetFps, Strategy... strategies) {
+        if (targetFps <= 0) {
+            throw new IllegalArgumentException("Target fps must be positive.");
+        }
+        this.targetFps = targetFps;
+        this.strategies = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(strategies)));
+    }
+
+    /**
+     * 默认策略：30 fps 下优先选宽高比与 View 一致且覆盖 View 的最小尺寸，其次选覆盖 View 的最小尺寸。
+     */
+    public static ResolutionPolicyEngine createDefault() {
+        return new ResolutionPolicyEngine(30, ResolutionStrategies.aspectRatioFirst(0.05f),
+                ResolutionStrategies.smallestCovering());
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public Decision select(List<Candidate> candidates, int viewWidth, int viewHeight) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No output sizes.");
+        }
+        List<Candidate> reachable = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (candidate.canReach(targetFps)) {
+                reachable.add(candidate);
+            }
+        }
+        boolean fpsReachable = !reachable.isEmpty();
+        if (!fpsReachable) {
+            // 没有尺寸能达到目标帧率，退而在所有尺寸中选择
+            reachable = candidates;
+        }
+        for (Strategy strategy : strategies) {
+            Resolution size = strategy.select(reachable, viewWidth, viewHeight, targetFps);
+            if (size != null) {
+                return new Decision(size, strategy.getName(), fpsReachable);
+            }
+        }
+        Resolution largest = reachable.get(0).getSize();
+        for (Candidate candidate : reachable) {
+            if (candidate.getSize().getArea() > largest.getArea()) {
+                largest = candidate.getSize();
+            }
+        }
+        return new Decision(largest, FALLBACK, fpsReachable);
+    }
+
+    /**
+     * 相机支持的一个输出尺寸及其最小帧间隔。
+     */
+    public static final class Candidate {
+        private final Resolution size;
+        private final long minFrameDurationNs;
+
+        /**
+         * @param minFrameDurationNs 最小帧间隔，0 表示未知（视为不限制帧率）
+         */
+        public Candidate(Resolution size, long minFrameDurationNs) {
+            this.size = size;
+            this.minFrameDurationNs = minFrameDurationNs;
+        }
+
+        public Resolution getSize() {
+            return size;
+        }
+
+        public long getMinFrameDurationNs() {
+            return minFrameDurationNs;
+        }
+
+        public boolean canReach(int fps) {
+            // 允许 1% 误差，33333333ns 视为可以达到 30 fps
+            return minFrameDurationNs <= 0 || minFrameDurationNs * fps <= TimeUnit.SECONDS.toNanos(1) * 101 / 100;
+        }
+
+        @Override
+        public String toString() {
+            return size + "@" + minFrameDurationNs + "ns";
+        }
+    }
+
+    public static final class Decision {
+        private final Resolution size;
+        private final String strategy;
+        private final boolean fpsReachable;
+
+        Decision(Resolution size, String strategy, boolean fpsReachable) {
+            this.size = size;
+            this.strategy = strategy;
+            this.fpsReachable = fpsReachable;
+        }
+
+        public Resolution getSize() {
+            return size;
+        }
+
+        /**
+         * 选出该尺寸的策略名，所有策略都没有结果时为 {@link #FALLBACK}。
+         */
+        public String getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * 是否有尺寸能达到目标帧率。为 false 时是在所有尺寸中选择的。
+         */
+        public boolean isFpsReachable() {
+            return fpsReachable;
+        }
+
+        @Override
+        public String toString() {
+            return size + " by " + strategy + (fpsReachable ? "" : " (target fps unreachable)");
+        }
+    }
+}
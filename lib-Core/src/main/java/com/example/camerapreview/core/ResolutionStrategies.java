@@ -0,0 +1,141 @@
+package com.example.camerapreview.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 常用的 {@link ResolutionPolicyEngine.Strategy}。
+ */
+public final class ResolutionStrategies {
+
+    private ResolutionStrategies() {
+    }
+
+    /**
+     * 覆盖 View 的最小尺寸，避免选出远大于显示区域的输出。没有能覆盖 View 的尺寸时不给出结果。
+     */
+    public static ResolutionPolicyEngine.Strategy smallestCovering() {
+        return new ResolutionPolicyEngine.Strategy() {
+            @Override
+            public String getName() {
+                return "smallest-covering";
+            }
+
+            @Override
+            public Resolution select(List<ResolutionPolicyEngine.Candidate> candidates, int viewWidth, int viewHeight,
+                                     int targetFps) {
+                return smallestCovering(candidates, viewWidth, viewHeight);
+            }
+        };
+    }
+
+    /**
+     * 面积最小的尺寸，用作预算类策略之后的兜底，避免引擎回退到最大尺寸。
+     */
+    public static ResolutionPolicyEngine.Strategy smallest() {
+        return new ResolutionPolicyEngine.Strategy() {
+            @Override
+            public String getName() {
+                return "smallest";
+            }
+
+            @Override
+            public Resolution select(List<ResolutionPolicyEngine.Candidate> candidates, int viewWidth, int viewHeight,
+                                     int targetFps) {
+                Resolution smallest = null;
+                for (ResolutionPolicyEngine.Candidate candidate : candidates) {
+                    if (smallest == null || candidate.getSize().getArea() < smallest.getArea()) {
+                        smallest = candidate.getSize();
+                    }
+                }
+                return smallest;
+            }
+        };
+    }
+
+    /**
+     * 宽高比优先：只在宽高比与 View 相差不超过 tolerance（相对误差）的尺寸中选择，取其中覆盖 View 的最小尺寸，
+     * 都不能覆盖时取其中最大的。没有宽高比一致的尺寸时不给出结果。
+     */
+    public static ResolutionPolicyEngine.Strategy aspectRatioFirst(final float tolerance) {
+        return new ResolutionPolicyEngine.Strategy() {
+            @Override
+            public String getName() {
+                return "aspect-ratio-first";
+            }
+
+            @Override
+            public Resolution select(List<ResolutionPolicyEngine.Candidate> candidates, int viewWidth, int viewHeight,
+                                     int targetFps) {
+                float viewRatio = aspectRatio(viewWidth, viewHeight);
+                List<ResolutionPolicyEngine.Candidate> matched = new ArrayList<>();
+                for (ResolutionPolicyEngine.Candidate candidate : candidates) {
+                    Resolution size = candidate.getSize();
+                    float ratio = aspectRatio(size.getWidth(), size.getHeight());
+                    if (Math.abs(ratio - viewRatio) <= viewRatio * tolerance) {
+                        matched.add(candidate);
+                    }
+                }
+                Resolution size = smallestCovering(matched, viewWidth, viewHeight);
+                return size != null ? size : largest(matched);
+            }
+        };
+    }
+
+    /**
+     * 像素吞吐预算：只在 宽 × 高 × 目标帧率 不超过 maxPixelsPerSecond 的尺寸中选择，取其中覆盖 View 的最小尺寸，
+     * 都不能覆盖时取预算内最大的。预算内没有尺寸时不给出结果。
+     */
+    public static ResolutionPolicyEngine.Strategy pixelRateBudget(final long maxPixelsPerSecond) {
+        return new ResolutionPolicyEngine.Strategy() {
+            @Override
+            public String getName() {
+                return "pixel-rate-budget";
+            }
+
+            @Override
+            public Resolution select(List<ResolutionPolicyEngine.Candidate> candidates, int viewWidth, int viewHeight,
+                                     int targetFps) {
+                List<ResolutionPolicyEngine.Candidate> affordable = new ArrayList<>();
+                for (ResolutionPolicyEngine.Candidate candidate : candidates) {
+                    if (candidate.getSize().getArea() * targetFps <= maxPixelsPerSecond) {
+                        affordable.add(candidate);
+                    }
+                }
+                Resolution size = smallestCovering(affordable, viewWidth, viewHeight);
+                return size != null ? size : largest(affordable);
+            }
+        };
+    }
+
+    private static Resolution smallestCovering(List<ResolutionPolicyEngine.Candidate> candidates, int viewWidth,
+                                               int viewHeight) {
+        int viewLong = Math.max(viewWidth, viewHeight);
+        int viewShort = Math.min(viewWidth, viewHeight);
+        Resolution best = null;
+        for (ResolutionPolicyEngine.Candidate candidate : candidates) {
+            Resolution size = candidate.getSize();
+            int longSide = Math.max(size.getWidth(), size.getHeight());
+            int shortSide = Math.min(size.getWidth(), size.getHeight());
+            if (longSide >= viewLong && shortSide >= viewShort && (best == null || size.getArea() < best.getArea())) {
+                best = size;
+            }
+        }
+        return best;
+    }
+
+    private static Resolution largest(List<ResolutionPolicyEngine.Candidate> candidates) {
+        Resolution largest = null;
+        for (ResolutionPolicyEngine.Candidate candidate : candidates) {
+            if (largest == null || candidate.getSize().getArea() > largest.getArea()) {
+                largest = candidate.getSize();
+            }
+        }
+        return largest;
+    }
+
+    // 长边比短边，与方向无关
+    private static float aspectRatio(int width, int height) {
+        return (float) Math.max(width, height) / Math.min(width, height);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.camerapreview.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合成帧来源，无需相机即可按指定分辨率与帧率产生带时间戳的 YUV 帧，用于在 JVM / CI 上测试分析路径的吞吐与丢帧。
+ * <p>
+ * 帧按 NV21 排列（V、U 交错，像素跨度 2），行跨度按 64 字节对齐，与多数相机的输出一致。帧缓冲区在构造时分配并循环
+ * 使用，同时在外的帧达到 maxFrames 时新帧被丢弃，与 ImageReader 缓冲区耗尽时相机丢帧的行为相同。
+ * 画面为随帧移动的斜条纹。
+ */
+public class SyntheticFrameSource implements FrameSource {
+
+    private final Resolution resolution;
+    private final long frameIntervalNs;
+    private final int rowStride;
+    private final byte[] pattern;
+    private final ArrayDeque<YuvFrame> freeFrames;
+    private final YuvFrame.Recycler recycler = new YuvFrame.Recycler() {
+        @Override
+        public void recycle(YuvFrame frame) {
+            synchronized (SyntheticFrameSource.this) {
+                freeFrames.push(frame);
+            }
+        }
+    };
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> future;
+    private volatile Listener listener;
+    private long frameNumber = 0;
+    private long producedCount = 0;
+    private long droppedCount = 0;
+
+    public SyntheticFrameSource(int width, int height, int fps, int maxFrames) {
+        if (width <= 0 || height <= 0 || fps <= 0 || maxFrames <= 0) {
+            throw new IllegalArgumentException("Invalid source: " + width + "x" + height + "@" + fps + " x" + maxFrames);
+        }
+        resolution = new Resolution(width, height);
+        frameIntervalNs = TimeUnit.SECONDS.toNanos(1) / fps;
+        rowStride = (width + 63) & ~63;
+        // 两倍宽度，每行从不同偏移处批量拷贝即可得到斜条纹
+        pattern = new byte[rowStride * 2];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = (byte) ((i * 4) & 0xFF);
+        }
+        freeFrames = new ArrayDeque<>(maxFrames);
+        for (int i = 0; i < maxFrames; i++) {
+            freeFrames.push(allocateFrame());
+        }
+    }
+
+    @Override
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        this.listener = listener;
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "SyntheticCamera"));
+            future = executor.scheduleAtFixedRate(this::produce, 0, frameIntervalNs, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            future.cancel(false);
+            executor.shutdown();
+            executor = null;
+            future = null;
+        }
+        listener = null;
+    }
+
+    /**
+     * 已交付的帧数。
+     */
+    public synchronized long getProducedCount() {
+        return producedCount;
+    }
+
+    /**
+     * 因缓冲区全部在外而丢弃的帧数。
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    private void produce() {
+        YuvFrame frame;
+        Listener current = listener;
+        synchronized (this) {
+            if (current == null) {
+                return;
+            }
+            frameNumber++;
+            frame = freeFrames.poll();
+            if (frame == null) {
+                droppedCount++;
+                return;
+            }
+            producedCount++;
+        }
+        fillLuma(frame.getYPlane(), (int) (frameNumber % rowStride));
+        frame.setTimestampNs(System.nanoTime());
+        current.onFrame(frame);
+    }
+
+    private void fillLuma(ByteBuffer y, int offset) {
+        int width = resolution.getWidth();
+        for (int row = 0; row < resolution.getHeight(); row++) {
+            y.position(row * rowStride);
+            y.put(pattern, (row + offset) % rowStride, width);
+        }
+        y.clear();
+    }
+
+    private YuvFrame allocateFrame() {
+        int height = resolution.getHeight();
+        ByteBuffer y = ByteBuffer.allocateDirect(rowStride * height);
+        // 色度行数向上取整，最后一个 V 之后还有一个 U
+        ByteBuffer vu = ByteBuffer.allocateDirect(rowStride * ((height + 1) / 2));
+        for (int i = 0; i < vu.capacity(); i++) {
+            vu.put(i, (byte) (i % 2 == 0 ? 160 : 96));
+        }
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return new YuvFrame(resolution.getWidth(), height, y, u, v, rowStride, rowStride, 2, 0, recycler);
+    }
+}
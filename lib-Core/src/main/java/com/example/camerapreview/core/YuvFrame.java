@@ -0,0 +1,98 @@
+package com.example.camerapreview.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 一帧 YUV_420_888 数据，平面排列与 {@code android.media.Image} 相同：Y 平面像素跨度为 1，U、V 平面共用行跨度与
+ * 像素跨度。
+ * <p>
+ * 帧由 {@link FrameSource} 产生，使用完后必须调用且只调用一次 {@link #close()} 归还，之后不能再访问其平面。
+ */
+public final class YuvFrame {
+
+    public interface Recycler {
+        void recycle(YuvFrame frame);
+    }
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer yPlane;
+    private final ByteBuffer uPlane;
+    private final ByteBuffer vPlane;
+    private final int yRowStride;
+    private final int uvRowStride;
+    private final int uvPixelStride;
+    private final Recycler recycler;
+    private long timestampNs;
+
+    public YuvFrame(int width, int height, ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int yRowStride,
+                    int uvRowStride, int uvPixelStride, long timestampNs, Recycler recycler) {
+        this.width = width;
+        this.height = height;
+        this.yPlane = yPlane;
+        this.uPlane = uPlane;
+        this.vPlane = vPlane;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.timestampNs = timestampNs;
+        this.recycler = recycler;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public ByteBuffer getYPlane() {
+        return yPlane;
+    }
+
+    public ByteBuffer getUPlane() {
+        return uPlane;
+    }
+
+    public ByteBuffer getVPlane() {
+        return vPlane;
+    }
+
+    public int getYRowStride() {
+        return yRowStride;
+    }
+
+    public int getUvRowStride() {
+        return uvRowStride;
+    }
+
+    public int getUvPixelStride() {
+        return uvPixelStride;
+    }
+
+    /**
+     * 曝光起始时间，来自单调时钟（相机为 SENSOR_TIMESTAMP）。
+     */
+    public long getTimestampNs() {
+        return timestampNs;
+    }
+
+    /**
+     * 复用帧的 FrameSource 在每次交付前更新时间戳。
+     */
+    public void setTimestampNs(long timestampNs) {
+        this.timestampNs = timestampNs;
+    }
+
+    /**
+     * 转换为 ARGB，见 {@link YuvToArgbConverter}。
+     */
+    public void toArgb(YuvToArgbConverter converter, int[] out) {
+        converter.convert(yPlane, yRowStride, uPlane, vPlane, uvRowStride, uvPixelStride, width, height, out);
+    }
+
+    public void close() {
+        recycler.recycle(this);
+    }
+}
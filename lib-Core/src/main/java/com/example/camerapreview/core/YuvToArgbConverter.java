@@ -0,0 +1,209 @@
+package com.example.camerapreview.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * YUV_420_888 转 ARGB。
+ * <p>
+ * 输入为 {@code Image} 提供的 Y/U/V 三个平面，支持任意行跨度与像素跨度（NV21、NV12、I420 等排列）。按 JFIF（BT.601
+ * 全范围）使用 16 位定点整数计算，结果写入调用方提供的 {@code int[]}（ARGB）或 {@link ByteBuffer}（按内存顺序
+ * R、G、B、A，与 {@code Bitmap.Config.ARGB_8888} 的 copyPixelsFromBuffer 一致）。
+ * <p>
+ * 像素数达到阈值的帧按行分段在 {@link ForkJoinPool} 上并行转换。分段任务在构造时创建并逐帧复用，转换过程不分配内存。
+ * 同一实例同一时刻只转换一帧，并发调用会串行执行。
+ */
+public class YuvToArgbConverter {
+
+    // 默认并行阈值，小于该像素数的帧在调用线程转换
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 640 * 480;
+
+    // 16 位定点系数：R = Y + 1.402 V，G = Y - 0.344136 U - 0.714136 V，B = Y + 1.772 U
+    private static final int SHIFT = 16;
+    private static final int ROUND = 1 << (SHIFT - 1);
+    private static final int R_V = 91881;
+    private static final int G_U = 22554;
+    private static final int G_V = 46802;
+    private static final int B_U = 116130;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final StripTask[] strips;
+    private final RecursiveAction rootTask = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            for (int i = 1; i < stripCount; i++) {
+                strips[i].fork();
+            }
+            strips[0].compute();
+            for (int i = 1; i < stripCount; i++) {
+                strips[i].join();
+            }
+        }
+    };
+
+    // 当前帧参数，在分段任务 fork 之前写入
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int yBase;
+    private int uBase;
+    private int vBase;
+    private int yRowStride;
+    private int uvRowStride;
+    private int uvPixelStride;
+    private int width;
+    private int[] outInts;
+    private ByteBuffer outBytes;
+    private int outBase;
+    private int stripCount;
+
+    public YuvToArgbConverter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public YuvToArgbConverter(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        strips = new StripTask[Math.max(1, pool.getParallelism())];
+        for (int i = 0; i < strips.length; i++) {
+            strips[i] = new StripTask();
+        }
+    }
+
+    /**
+     * 转换一帧到 ARGB 数组，第 {@code row} 行第 {@code col} 列写入 {@code out[row * width + col]}。
+     *
+     * @param uvRowStride   U、V 平面共同的行跨度
+     * @param uvPixelStride U、V 平面共同的像素跨度，I420 为 1，NV21/NV12 为 2
+     */
+    public synchronized void convert(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v, int uvRowStride,
+                                     int uvPixelStride, int width, int height, int[] out) {
+        if (out.length < width * height) {
+            throw new IllegalArgumentException("Output too small: " + out.length + " < " + width * height);
+        }
+        outInts = out;
+        outBytes = null;
+        run(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height);
+    }
+
+    /**
+     * 转换一帧到 RGBA 字节缓冲区，从 {@code out} 的当前 position 开始写入 {@code width * height * 4} 字节，
+     * 不修改 position。
+     */
+    public synchronized void convert(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v, int uvRowStride,
+                                     int uvPixelStride, int width, int height, ByteBuffer out) {
+        if (out.remaining() < width * height * 4) {
+            throw new IllegalArgumentException("Output too small: " + out.remaining() + " < " + width * height * 4);
+        }
+        outInts = null;
+        outBytes = out;
+        outBase = out.position();
+        run(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height);
+    }
+
+    private void run(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                     int width, int height) {
+        yPlane = y;
+        uPlane = u;
+        vPlane = v;
+        yBase = y.position();
+        uBase = u.position();
+        vBase = v.position();
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.width = width;
+        try {
+            if (width * height < parallelThreshold || strips.length == 1) {
+                convertRows(0, height);
+                return;
+            }
+            // 每段行数取偶数，使相邻两段不共享色度行
+            int rowsPerStrip = ((height + strips.length - 1) / strips.length + 1) & ~1;
+            stripCount = 0;
+            for (int start = 0; start < height; start += rowsPerStrip) {
+                StripTask strip = strips[stripCount++];
+                strip.reinitialize();
+                strip.startRow = start;
+                strip.endRow = Math.min(start + rowsPerStrip, height);
+            }
+            rootTask.reinitialize();
+            pool.invoke(rootTask);
+        } finally {
+            // 不持有调用方的缓冲区
+            yPlane = null;
+            uPlane = null;
+            vPlane = null;
+            outInts = null;
+            outBytes = null;
+        }
+    }
+
+    private void convertRows(int startRow, int endRow) {
+        final ByteBuffer y = yPlane;
+        final ByteBuffer u = uPlane;
+        final ByteBuffer v = vPlane;
+        final int[] ints = outInts;
+        final ByteBuffer bytes = outBytes;
+        final int width = this.width;
+        final int pixelStride = uvPixelStride;
+        for (int row = startRow; row < endRow; row++) {
+            int yIndex = yBase + row * yRowStride;
+            int uvOffset = (row >> 1) * uvRowStride;
+            int uIndex = uBase + uvOffset;
+            int vIndex = vBase + uvOffset;
+            int outIndex = row * width;
+            for (int col = 0; col < width; col += 2) {
+                // 相邻两个像素共用一组色度
+                int cu = (u.get(uIndex) & 0xFF) - 128;
+                int cv = (v.get(vIndex) & 0xFF) - 128;
+                int dr = (R_V * cv + ROUND) >> SHIFT;
+                int dg = (-G_U * cu - G_V * cv + ROUND) >> SHIFT;
+                int db = (B_U * cu + ROUND) >> SHIFT;
+                int luma = y.get(yIndex) & 0xFF;
+                write(ints, bytes, outIndex, luma + dr, luma + dg, luma + db);
+                if (col + 1 < width) {
+                    luma = y.get(yIndex + 1) & 0xFF;
+                    write(ints, bytes, outIndex + 1, luma + dr, luma + dg, luma + db);
+                }
+                yIndex += 2;
+                uIndex += pixelStride;
+                vIndex += pixelStride;
+                outIndex += 2;
+            }
+        }
+    }
+
+    private void write(int[] ints, ByteBuffer bytes, int index, int r, int g, int b) {
+        r = clamp(r);
+        g = clamp(g);
+        b = clamp(b);
+        if (ints != null) {
+            ints[index] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        } else {
+            int offset = outBase + index * 4;
+            bytes.put(offset, (byte) r);
+            bytes.put(offset + 1, (byte) g);
+            bytes.put(offset + 2, (byte) b);
+            bytes.put(offset + 3, (byte) 0xFF);
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+
+    private final class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        int startRow;
+        int endRow;
+
+        @Override
+        protected void compute() {
+            convertRows(startRow, endRow);
+        }
+    }
+}
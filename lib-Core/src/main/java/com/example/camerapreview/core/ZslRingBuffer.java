@@ -0,0 +1,218 @@
+package com.example.camerapreview.core;
+
+/**
+ * 零延迟拍照（ZSL）的帧环形缓冲。
+ * <p>
+ * 保存最近 capacity 帧全尺寸图像，并按传感器时间戳与对应的拍摄结果配对，帧与结果的到达顺序不限。超过 capacity 时
+ * 最早的帧立即交给 {@link Releaser} 释放，占用的缓冲区数不会超过 capacity；长时间没有配对的结果同样会被淘汰。
+ * 拍照时用 {@link #take(long)} 取出最合适的一帧，所有权转给调用方，由调用方释放。
+ */
+public class ZslRingBuffer<F, R> {
+
+    public interface Releaser<F> {
+        void release(F frame);
+    }
+
+    public interface Judge<R> {
+        /**
+         * 该帧的 3A 是否已收敛，收敛的帧优先被选中。
+         */
+        boolean isConverged(R result);
+    }
+
+    /**
+     * 取出的一帧及其拍摄结果。
+     */
+    public static final class Selection<F, R> {
+        private final long timestampNs;
+        private final F frame;
+        private final R result;
+        private final boolean converged;
+
+        Selection(long timestampNs, F frame, R result, boolean converged) {
+            this.timestampNs = timestampNs;
+            this.frame = frame;
+            this.result = result;
+            this.converged = converged;
+        }
+
+        public long getTimestampNs() {
+            return timestampNs;
+        }
+
+        public F getFrame() {
+            return frame;
+        }
+
+        public R getResult() {
+            return result;
+        }
+
+        public boolean isConverged() {
+            return converged;
+        }
+    }
+
+    private final int capacity;
+    private final Judge<R> judge;
+    private final Releaser<F> releaser;
+    // 每个槽位保存一个时间戳及其帧、结果（可能只有其中之一），槽位数为帧数上限的两倍，留给尚未配对的结果
+    private final long[] timestamps;
+    private final Object[] frames;
+    private final Object[] results;
+    private int frameCount = 0;
+    private long evictedCount = 0;
+
+    public ZslRingBuffer(int capacity, Judge<R> judge, Releaser<F> releaser) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.judge = judge;
+        this.releaser = releaser;
+        timestamps = new long[capacity * 2];
+        frames = new Object[capacity * 2];
+        results = new Object[capacity * 2];
+    }
+
+    /**
+     * 加入一帧，超过容量时释放最早的帧。
+     */
+    public synchronized void addFrame(long timestampNs, F frame) {
+        int slot = slotFor(timestampNs);
+        if (frames[slot] != null) {
+            // 同一时间戳的重复帧，保留新的
+            releaser.release(frameAt(slot));
+            frameCount--;
+        }
+        frames[slot] = frame;
+        frameCount++;
+        while (frameCount > capacity) {
+            evict(oldestSlot(true));
+        }
+    }
+
+    /**
+     * 加入一帧的拍摄结果。
+     */
+    public synchronized void addResult(long timestampNs, R result) {
+        results[slotFor(timestampNs)] = result;
+    }
+
+    /**
+     * 取出一帧：在最新配对帧之前 maxAgeNs 内优先选最新的 3A 收敛帧，没有则选最新的配对帧。
+     *
+     * @return 没有配对完成的帧时返回 null
+     */
+    public synchronized Selection<F, R> take(long maxAgeNs) {
+        int newest = -1;
+        for (int i = 0; i < timestamps.length; i++) {
+            if (isPaired(i) && (newest < 0 || timestamps[i] > timestamps[newest])) {
+                newest = i;
+            }
+        }
+        if (newest < 0) {
+            return null;
+        }
+        int best = -1;
+        for (int i = 0; i < timestamps.length; i++) {
+            if (isPaired(i) && timestamps[newest] - timestamps[i] <= maxAgeNs && judge.isConverged(resultAt(i))
+                    && (best < 0 || timestamps[i] > timestamps[best])) {
+                best = i;
+            }
+        }
+        boolean converged = best >= 0;
+        if (!converged) {
+            best = newest;
+        }
+        Selection<F, R> selection = new Selection<>(timestamps[best], frameAt(best), resultAt(best), converged);
+        frames[best] = null;
+        results[best] = null;
+        frameCount--;
+        return selection;
+    }
+
+    /**
+     * 释放所有帧并丢弃结果。
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < timestamps.length; i++) {
+            if (frames[i] != null) {
+                releaser.release(frameAt(i));
+                frames[i] = null;
+            }
+            results[i] = null;
+        }
+        frameCount = 0;
+    }
+
+    public synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 因超过容量被释放的帧数。
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    private boolean isPaired(int slot) {
+        return frames[slot] != null && results[slot] != null;
+    }
+
+    private boolean isEmpty(int slot) {
+        return frames[slot] == null && results[slot] == null;
+    }
+
+    // 找到时间戳对应的槽位，没有时使用空槽位，槽位用完则淘汰最早的一个
+    private int slotFor(long timestampNs) {
+        int free = -1;
+        for (int i = 0; i < timestamps.length; i++) {
+            if (isEmpty(i)) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (timestamps[i] == timestampNs) {
+                return i;
+            }
+        }
+        if (free < 0) {
+            free = oldestSlot(false);
+            evict(free);
+        }
+        timestamps[free] = timestampNs;
+        return free;
+    }
+
+    private int oldestSlot(boolean withFrame) {
+        int oldest = -1;
+        for (int i = 0; i < timestamps.length; i++) {
+            boolean candidate = withFrame ? frames[i] != null : !isEmpty(i);
+            if (candidate && (oldest < 0 || timestamps[i] < timestamps[oldest])) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    private void evict(int slot) {
+        if (frames[slot] != null) {
+            releaser.release(frameAt(slot));
+            frames[slot] = null;
+            frameCount--;
+            evictedCount++;
+        }
+        results[slot] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private F frameAt(int slot) {
+        return (F) frames[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private R resultAt(int slot) {
+        return (R) results[slot];
+    }
+}
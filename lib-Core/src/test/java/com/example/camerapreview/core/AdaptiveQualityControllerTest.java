@@ -0,0 +1,102 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AdaptiveQualityControllerTest {
+
+    private static final int MIN_FPS = 30;
+    private static final long P95_OK = 34_000_000L;
+
+    // 录制的轨迹：{时间 ms, 温控状态, 帧率, p95 帧间隔 ns}，每秒一条帧统计，温控状态变化时先回调温控
+    private static List<String> replay(AdaptiveQualityController controller, long[][] trace) {
+        List<String> changes = new ArrayList<>();
+        int thermal = AdaptiveQualityController.THERMAL_STATUS_NONE;
+        for (long[] row : trace) {
+            long now = row[0];
+            if (row[1] != thermal) {
+                thermal = (int) row[1];
+                record(changes, now, controller.onThermalStatus(thermal, now), controller);
+            }
+            record(changes, now, controller.onFrameStats(row[2], row[3], MIN_FPS, now), controller);
+        }
+        return changes;
+    }
+
+    private static void record(List<String> changes, long now, AdaptiveQualityController.Action action,
+                               AdaptiveQualityController controller) {
+        if (action != AdaptiveQualityController.Action.NONE) {
+            changes.add(now + ":" + controller.getLevel() + ":" + action);
+        }
+    }
+
+    // 从 startMs 起每秒一条，共 seconds 条
+    private static long[][] steady(long startMs, int seconds, int thermal, int fps, long p95) {
+        long[][] rows = new long[seconds][];
+        for (int i = 0; i < seconds; i++) {
+            rows[i] = new long[]{startMs + i * 1000L, thermal, fps, p95};
+        }
+        return rows;
+    }
+
+    private static long[][] concat(long[][]... parts) {
+        List<long[]> rows = new ArrayList<>();
+        for (long[][] part : parts) {
+            for (long[] row : part) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray(new long[0][]);
+    }
+
+    @Test
+    public void thermalRampAndRecovery() {
+        long[][] trace = concat(
+                steady(0, 5, AdaptiveQualityController.THERMAL_STATUS_NONE, 30, P95_OK),
+                steady(5000, 3, AdaptiveQualityController.THERMAL_STATUS_MODERATE, 30, P95_OK),
+                steady(8000, 12, AdaptiveQualityController.THERMAL_STATUS_SEVERE, 30, P95_OK),
+                steady(20000, 25, AdaptiveQualityController.THERMAL_STATUS_LIGHT, 30, P95_OK));
+        List<String> changes = replay(new AdaptiveQualityController(), trace);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("5000:low-power:UPDATE_REQUEST");
+        expected.add("8000:720p:RECONFIGURE_SESSION");
+        // 降温后需持续 10 秒正常才逐级恢复
+        expected.add("30000:low-power:RECONFIGURE_SESSION");
+        expected.add("41000:full:UPDATE_REQUEST");
+        assertEquals(expected, changes);
+    }
+
+    @Test
+    public void frameDropsStepDownWithDwell() {
+        long[][] trace = concat(
+                steady(0, 3, AdaptiveQualityController.THERMAL_STATUS_NONE, 30, P95_OK),
+                steady(3000, 6, AdaptiveQualityController.THERMAL_STATUS_NONE, 20, 80_000_000L));
+        AdaptiveQualityController controller = new AdaptiveQualityController();
+        List<String> changes = replay(controller, trace);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("4000:low-power:UPDATE_REQUEST");
+        // 连续过载但距上次降级不足 3 秒，等到 7000
+        expected.add("7000:720p:RECONFIGURE_SESSION");
+        assertEquals(expected, changes);
+    }
+
+    @Test
+    public void intermittentLoadDoesNotFlap() {
+        AdaptiveQualityController controller = new AdaptiveQualityController();
+        controller.onFrameStats(20, P95_OK, MIN_FPS, 0);
+        controller.onFrameStats(20, P95_OK, MIN_FPS, 1000);
+        assertEquals(1, controller.getLevelIndex());
+        // 正常与过载交替，既不继续降级也不恢复
+        for (int i = 2; i < 60; i++) {
+            controller.onFrameStats(i % 2 == 0 ? 30 : 20, P95_OK, MIN_FPS, i * 1000L);
+        }
+        assertEquals(1, controller.getLevelIndex());
+        assertEquals(1, controller.getChangeCount());
+    }
+}
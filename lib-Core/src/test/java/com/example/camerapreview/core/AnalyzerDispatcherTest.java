@@ -0,0 +1,154 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class AnalyzerDispatcherTest {
+
+    @Test
+    public void frameReleasedAfterAllAnalyzersFinish() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> released = new ArrayList<>();
+        AnalyzerDispatcher<Integer> dispatcher = new AnalyzerDispatcher<>(executor, released::add);
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        dispatcher.addAnalyzer("first", first::add);
+        dispatcher.addAnalyzer("second", second::add);
+
+        dispatcher.dispatch(1);
+        assertTrue(released.isEmpty());
+        executor.runNext();
+        assertTrue(released.isEmpty());
+        executor.runNext();
+
+        assertEquals(1, released.size());
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    public void slowAnalyzerOnlyDropsItsOwnFrames() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> released = new ArrayList<>();
+        AnalyzerDispatcher<Integer> dispatcher = new AnalyzerDispatcher<>(executor, released::add);
+        List<Integer> fast = new ArrayList<>();
+        List<Integer> slow = new ArrayList<>();
+        dispatcher.addAnalyzer("fast", fast::add);
+        dispatcher.addAnalyzer("slow", slow::add);
+
+        dispatcher.dispatch(1);
+        // 只有 fast 处理完，slow 仍在处理第 1 帧
+        executor.runNext();
+        dispatcher.dispatch(2);
+        dispatcher.dispatch(3);
+        executor.runAll();
+
+        assertEquals(3, released.size());
+        assertEquals(2, fast.size());
+        assertEquals(1, slow.size());
+        List<AnalyzerDispatcher.Stats> stats = dispatcher.getStats();
+        assertEquals("fast", stats.get(0).getName());
+        assertEquals(2, stats.get(0).getAnalyzedCount());
+        assertEquals(1, stats.get(0).getDroppedCount());
+        assertEquals(1, stats.get(1).getAnalyzedCount());
+        assertEquals(2, stats.get(1).getDroppedCount());
+    }
+
+    @Test
+    public void frameReleasedWithoutAnalyzersOrWhenRejected() {
+        List<Integer> released = new ArrayList<>();
+        AnalyzerDispatcher<Integer> dispatcher = new AnalyzerDispatcher<>(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, released::add);
+
+        dispatcher.dispatch(1);
+        dispatcher.addAnalyzer("rejected", frame -> {
+        });
+        dispatcher.dispatch(2);
+        dispatcher.dispatch(3);
+
+        assertEquals(3, released.size());
+        assertEquals(2, dispatcher.getStats().get(0).getDroppedCount());
+        assertTrue(dispatcher.removeAnalyzer("rejected"));
+        assertTrue(dispatcher.getStats().isEmpty());
+    }
+
+    @Test
+    public void sourceDropsCountedFromTimestampGaps() {
+        List<Integer> released = new ArrayList<>();
+        // 分析器立即处理完，分发器自身不丢帧
+        AnalyzerDispatcher<Integer> dispatcher = new AnalyzerDispatcher<>(Runnable::run, released::add);
+        dispatcher.addAnalyzer("only", frame -> {
+        });
+        long intervalNs = 33_333_333L;
+
+        dispatcher.dispatch(0, 1_000_000L);
+        dispatcher.dispatch(1, 1_000_000L + intervalNs);
+        // 来源在第 1 帧释放前没有交付第 2、3 帧
+        dispatcher.dispatch(4, 1_000_000L + 4 * intervalNs);
+        dispatcher.markDiscontinuity();
+        dispatcher.dispatch(5, 9_000_000_000L);
+        dispatcher.dispatch(6, 9_000_000_000L + intervalNs + 2_000_000L);
+
+        assertEquals(5, released.size());
+        assertEquals(5, dispatcher.getSourceFrameCount());
+        assertEquals(2, dispatcher.getSourceDroppedCount());
+        assertEquals(0, dispatcher.getStats().get(0).getDroppedCount());
+    }
+
+    @Test
+    public void sourceFrameRateDropIsNotCountedAsDrops() {
+        List<Integer> released = new ArrayList<>();
+        AnalyzerDispatcher<Integer> dispatcher = new AnalyzerDispatcher<>(Runnable::run, released::add);
+        dispatcher.addAnalyzer("only", frame -> {
+        });
+        long timestampNs = 1_000_000L;
+        for (int i = 0; i < 30; i++) {
+            dispatcher.dispatch(i, timestampNs);
+            timestampNs += 33_333_333L;
+        }
+        // 自动曝光把帧率从 30 降到 15，帧周期估计在几帧内跟上
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(i, timestampNs);
+            timestampNs += 66_666_666L;
+        }
+        long dropsAfterSwitch = dispatcher.getSourceDroppedCount();
+        for (int i = 0; i < 30; i++) {
+            dispatcher.dispatch(i, timestampNs);
+            timestampNs += 66_666_666L;
+        }
+
+        assertTrue(dropsAfterSwitch <= 5);
+        assertEquals(dropsAfterSwitch, dispatcher.getSourceDroppedCount());
+    }
+
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runNext() {
+            tasks.poll().run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
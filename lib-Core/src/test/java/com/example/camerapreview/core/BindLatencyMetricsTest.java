@@ -0,0 +1,41 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BindLatencyMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void recordsFirstFrameOnlyPerKind() {
+        BindLatencyMetrics metrics = new BindLatencyMetrics();
+        metrics.begin(BindLatencyMetrics.Kind.REBIND, 0);
+        metrics.onFrame(400 * MS);
+        metrics.onFrame(433 * MS);
+        metrics.begin(BindLatencyMetrics.Kind.RESUME, 1000 * MS);
+        metrics.onFrame(1040 * MS);
+        metrics.begin(BindLatencyMetrics.Kind.RESUME, 2000 * MS);
+        metrics.onFrame(2060 * MS);
+        metrics.begin(BindLatencyMetrics.Kind.RESUME, 3000 * MS);
+        metrics.onFrame(3020 * MS);
+
+        assertEquals(1, metrics.getCount(BindLatencyMetrics.Kind.REBIND));
+        assertEquals(400 * MS, metrics.getLastNs(BindLatencyMetrics.Kind.REBIND));
+        assertEquals(3, metrics.getCount(BindLatencyMetrics.Kind.RESUME));
+        assertEquals(20 * MS, metrics.getLastNs(BindLatencyMetrics.Kind.RESUME));
+        assertEquals(40 * MS, metrics.getMedianNs(BindLatencyMetrics.Kind.RESUME));
+    }
+
+    @Test
+    public void cancelledResumeIsNotRecorded() {
+        BindLatencyMetrics metrics = new BindLatencyMetrics();
+        metrics.begin(BindLatencyMetrics.Kind.RESUME, 0);
+        metrics.cancel();
+        metrics.onFrame(10 * MS);
+
+        assertEquals(0, metrics.getCount(BindLatencyMetrics.Kind.RESUME));
+        assertEquals(0, metrics.getMedianNs(BindLatencyMetrics.Kind.RESUME));
+    }
+}
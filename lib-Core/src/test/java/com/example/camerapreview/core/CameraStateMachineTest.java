@@ -0,0 +1,203 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+public class CameraStateMachineTest {
+
+    private FakeDevice device;
+    private CameraStateMachine stateMachine;
+
+    @Before
+    public void setUp() {
+        device = new FakeDevice();
+        stateMachine = new CameraStateMachine(device);
+        device.stateMachine = stateMachine;
+    }
+
+    @Test
+    public void openRunsThroughAllStates() {
+        stateMachine.requestOpen();
+        assertEquals(CameraStateMachine.State.OPENING, stateMachine.getState());
+        device.deliverNext();
+        device.deliverNext();
+        assertEquals(CameraStateMachine.State.CONFIGURED, stateMachine.getState());
+
+        stateMachine.requestClose();
+        assertEquals(CameraStateMachine.State.CLOSING, stateMachine.getState());
+        device.deliverAll();
+        assertEquals(CameraStateMachine.State.CLOSED, stateMachine.getState());
+        assertEquals(1, device.opens);
+        assertEquals(1, device.closes);
+    }
+
+    @Test
+    public void duplicateOpenRequestsAreCollapsed() {
+        // 例如权限回调与 onSurfaceTextureAvailable 同时请求打开
+        stateMachine.requestOpen();
+        stateMachine.requestOpen();
+        device.deliverNext();
+        stateMachine.requestOpen();
+        device.deliverAll();
+
+        assertEquals(1, device.opens);
+        assertEquals(1, device.configures);
+    }
+
+    @Test
+    public void closeThenOpenWhileOpeningDoesNotReopen() {
+        stateMachine.requestOpen();
+        stateMachine.requestClose();
+        stateMachine.requestOpen();
+        device.deliverAll();
+
+        assertEquals(CameraStateMachine.State.CONFIGURED, stateMachine.getState());
+        assertEquals(1, device.opens);
+        assertEquals(0, device.closes);
+    }
+
+    @Test
+    public void closeWhileOpeningClosesAfterOpened() {
+        stateMachine.requestOpen();
+        stateMachine.requestClose();
+        assertEquals(0, device.closes);
+
+        device.deliverAll();
+        assertEquals(CameraStateMachine.State.CLOSED, stateMachine.getState());
+        assertEquals(1, device.closes);
+        assertEquals(0, device.configures);
+    }
+
+    @Test
+    public void repeatedCloseIsIgnored() {
+        // 例如 onStop 之后紧接着 onDestroy
+        stateMachine.requestOpen();
+        device.deliverAll();
+        stateMachine.requestClose();
+        stateMachine.requestClose();
+        device.deliverAll();
+        stateMachine.requestClose();
+
+        assertEquals(1, device.closes);
+    }
+
+    @Test
+    public void openWhileClosingReopensOnceClosed() {
+        stateMachine.requestOpen();
+        device.deliverAll();
+        stateMachine.requestClose();
+        stateMachine.requestOpen();
+        assertEquals(1, device.opens);
+
+        device.deliverAll();
+        assertEquals(CameraStateMachine.State.CONFIGURED, stateMachine.getState());
+        assertEquals(2, device.opens);
+        assertEquals(1, device.closes);
+    }
+
+    @Test
+    public void errorClosesAndDropsRequest() {
+        stateMachine.requestOpen();
+        device.deliverAll();
+        stateMachine.onError();
+        device.deliverAll();
+
+        assertEquals(CameraStateMachine.State.CLOSED, stateMachine.getState());
+        assertFalse(stateMachine.isOpenRequested());
+    }
+
+    @Test
+    public void randomEventStormsNeverDoubleOpen() {
+        for (long seed = 0; seed < 200; seed++) {
+            setUp();
+            Random random = new Random(seed);
+            boolean lastRequestOpen = false;
+            int requestedOpens = 0;
+            for (int step = 0; step < 500; step++) {
+                int event = random.nextInt(3);
+                if (event == 0) {
+                    if (!lastRequestOpen) {
+                        requestedOpens++;
+                    }
+                    lastRequestOpen = true;
+                    stateMachine.requestOpen();
+                } else if (event == 1) {
+                    lastRequestOpen = false;
+                    stateMachine.requestClose();
+                } else {
+                    device.deliverNext();
+                }
+                assertTrue("seed " + seed, device.opens - device.closes == 0 || device.opens - device.closes == 1);
+            }
+            device.deliverAll();
+
+            CameraStateMachine.State expected = lastRequestOpen
+                    ? CameraStateMachine.State.CONFIGURED : CameraStateMachine.State.CLOSED;
+            assertEquals("seed " + seed, expected, stateMachine.getState());
+            assertTrue("seed " + seed, device.opens <= requestedOpens);
+            assertEquals("seed " + seed, device.opens, stateMachine.getOpenCount());
+            assertEquals("seed " + seed, device.closes, stateMachine.getCloseCount());
+        }
+    }
+
+    /**
+     * 假设备：记录调用次数，并把完成回调排队，模拟相机线程上的异步回调。
+     */
+    private static class FakeDevice implements CameraStateMachine.Device {
+        final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        CameraStateMachine stateMachine;
+        boolean deviceOpen;
+        boolean configured;
+        int opens;
+        int configures;
+        int closes;
+
+        @Override
+        public void open() {
+            assertFalse("opened twice", deviceOpen);
+            deviceOpen = true;
+            opens++;
+            pending.add(() -> stateMachine.onOpened());
+        }
+
+        @Override
+        public void configure() {
+            assertTrue("configure on closed device", deviceOpen);
+            assertFalse("configured twice", configured);
+            configured = true;
+            configures++;
+            pending.add(() -> stateMachine.onConfigured());
+        }
+
+        @Override
+        public void close() {
+            assertTrue("close on closed device", deviceOpen);
+            closes++;
+            pending.add(() -> {
+                deviceOpen = false;
+                configured = false;
+                stateMachine.onClosed();
+            });
+        }
+
+        void deliverNext() {
+            Runnable callback = pending.poll();
+            if (callback != null) {
+                callback.run();
+            }
+        }
+
+        void deliverAll() {
+            while (!pending.isEmpty()) {
+                deliverNext();
+            }
+        }
+    }
+}
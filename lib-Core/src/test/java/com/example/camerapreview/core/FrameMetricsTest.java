@@ -0,0 +1,90 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FrameMetricsTest {
+
+    private static final long FRAME_30FPS_NS = 33_333_333L;
+
+    @Test
+    public void steadyStreamReportsFps() {
+        FrameMetrics metrics = new FrameMetrics(16);
+        for (int i = 1; i <= 31; i++) {
+            metrics.onFrame(i * FRAME_30FPS_NS);
+            metrics.onSensorTimestamp(i * FRAME_30FPS_NS);
+        }
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(31, snapshot.getFrameCount());
+        assertEquals(30.0, snapshot.getFps(), 0.01);
+        assertEquals(FRAME_30FPS_NS, snapshot.getP95IntervalNs());
+        assertEquals(0.0, snapshot.getSensorJitterNs(), 0.0);
+        // 30 个间隔全部落在 (17ms, 34ms] 桶
+        assertArrayEquals(new long[]{0, 0, 30, 0, 0, 0, 0, 0}, snapshot.getHistogram());
+    }
+
+    @Test
+    public void stutterShowsInTailAndJitter() {
+        FrameMetrics metrics = new FrameMetrics();
+        long t = 1;
+        for (int i = 0; i < 20; i++) {
+            t += i == 10 ? 3 * FRAME_30FPS_NS : FRAME_30FPS_NS;
+            metrics.onFrame(t);
+            metrics.onSensorTimestamp(t);
+        }
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(3 * FRAME_30FPS_NS, snapshot.getMaxIntervalNs());
+        assertEquals(FRAME_30FPS_NS, snapshot.getP50IntervalNs());
+        assertEquals(1, snapshot.getHistogram()[5]);
+        assertEquals(true, snapshot.getSensorJitterNs() > 0);
+    }
+
+    @Test
+    public void discontinuityIsNotCountedAsInterval() {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.onFrame(FRAME_30FPS_NS);
+        metrics.onFrame(2 * FRAME_30FPS_NS);
+        metrics.markDiscontinuity();
+        metrics.onFrame(100 * FRAME_30FPS_NS);
+        metrics.onFrame(101 * FRAME_30FPS_NS);
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(4, snapshot.getFrameCount());
+        assertEquals(FRAME_30FPS_NS, snapshot.getMaxIntervalNs());
+    }
+
+    @Test
+    public void countsFailuresAndLostBuffers() {
+        FrameMetrics metrics = new FrameMetrics();
+        metrics.onFailure();
+        metrics.onFailure();
+        metrics.onBufferLost();
+
+        FrameMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getFailureCount());
+        assertEquals(1, snapshot.getBufferLostCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getFailureCount());
+    }
+
+    @Test
+    public void ringBufferKeepsLatestIntervals() {
+        FrameMetrics metrics = new FrameMetrics(4);
+        long t = 0;
+        for (int i = 0; i < 10; i++) {
+            t += 100_000_000L;
+            metrics.onFrame(t);
+        }
+        for (int i = 0; i < 4; i++) {
+            t += FRAME_30FPS_NS;
+            metrics.onFrame(t);
+        }
+
+        assertEquals(FRAME_30FPS_NS, metrics.snapshot().getMaxIntervalNs());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class FrameRecorderTest {
+
+    private static final int WIDTH = 17;
+    private static final int HEIGHT = 9;
+    private static final int ROW_STRIDE = 24;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("frames").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                assertTrue(file.delete());
+            }
+        }
+        assertTrue(directory.delete());
+    }
+
+    // 奇数尺寸、带行填充的帧，内容由 seed 决定
+    private static YuvFrame frame(int seed, long timestampNs) {
+        ByteBuffer y = ByteBuffer.allocate(ROW_STRIDE * HEIGHT);
+        ByteBuffer u = ByteBuffer.allocate(ROW_STRIDE * ((HEIGHT + 1) / 2));
+        ByteBuffer v = ByteBuffer.allocate(ROW_STRIDE * ((HEIGHT + 1) / 2));
+        for (int i = 0; i < y.capacity(); i++) {
+            y.put(i, (byte) (seed + i));
+        }
+        for (int i = 0; i < u.capacity(); i++) {
+            u.put(i, (byte) (seed * 3 + i));
+            v.put(i, (byte) (seed * 5 + i));
+        }
+        return new YuvFrame(WIDTH, HEIGHT, y, u, v, ROW_STRIDE, ROW_STRIDE, 2, timestampNs, f -> {
+        });
+    }
+
+    private static void assertPlanesEqual(YuvFrame expected, YuvFrame actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getYRowStride(), actual.getYRowStride());
+        assertEquals(expected.getUvRowStride(), actual.getUvRowStride());
+        assertEquals(expected.getUvPixelStride(), actual.getUvPixelStride());
+        assertEquals(expected.getTimestampNs(), actual.getTimestampNs());
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                int index = row * ROW_STRIDE + col;
+                assertEquals(expected.getYPlane().get(index), actual.getYPlane().get(index));
+            }
+        }
+        for (int row = 0; row < (HEIGHT + 1) / 2; row++) {
+            for (int col = 0; col < (WIDTH + 1) / 2; col++) {
+                int index = row * ROW_STRIDE + col * 2;
+                assertEquals(expected.getUPlane().get(index), actual.getUPlane().get(index));
+                assertEquals(expected.getVPlane().get(index), actual.getVPlane().get(index));
+            }
+        }
+    }
+
+    @Test
+    public void replaysEveryFrameAcrossSegmentsAtMaximumSpeed() throws Exception {
+        // 每段只够放两帧
+        FrameRecorder recorder = new FrameRecorder(directory, 1024, 16);
+        List<YuvFrame> recorded = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            YuvFrame frame = frame(i, 1_000_000L + i * 33_333_333L);
+            assertTrue(recorder.record(frame));
+            recorded.add(frame);
+        }
+        recorder.close();
+        assertEquals(7, recorder.getRecordedCount());
+        assertEquals(4, directory.listFiles().length);
+
+        RecordedFrameSource source = new RecordedFrameSource(directory, RecordedFrameSource.Speed.MAXIMUM, 1);
+        assertEquals(7, source.getFrameCount());
+        assertEquals(new Resolution(WIDTH, HEIGHT), source.getResolution());
+        final List<YuvFrame> replayed = new ArrayList<>();
+        source.start(frame -> {
+            synchronized (replayed) {
+                replayed.add(frame);
+            }
+            frame.close();
+        });
+        assertTrue(source.awaitFinished(5, TimeUnit.SECONDS));
+        source.stop();
+
+        assertEquals(7, source.getProducedCount());
+        assertEquals(0, source.getDroppedCount());
+        synchronized (replayed) {
+            for (int i = 0; i < recorded.size(); i++) {
+                assertPlanesEqual(recorded.get(i), replayed.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void originalSpeedKeepsRecordedIntervals() throws Exception {
+        FrameRecorder recorder = new FrameRecorder(directory, 1024 * 1024, 8);
+        for (int i = 0; i < 5; i++) {
+            recorder.record(frame(i, i * 20_000_000L));
+        }
+        recorder.close();
+
+        RecordedFrameSource source = new RecordedFrameSource(directory, RecordedFrameSource.Speed.ORIGINAL, 2);
+        long start = System.nanoTime();
+        source.start(YuvFrame::close);
+        assertTrue(source.awaitFinished(5, TimeUnit.SECONDS));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        source.stop();
+
+        assertEquals(5, source.getProducedCount());
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 80);
+    }
+
+    @Test
+    public void busyWriterDropsInsteadOfBlocking() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        final CountDownLatch writerBlocked = new CountDownLatch(1);
+        // 写入线程被占住，模拟存储很慢
+        writer.execute(() -> {
+            try {
+                writerBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        FrameRecorder recorder = new FrameRecorder(directory, 1024, 1, writer);
+        assertTrue(recorder.record(frame(0, 0)));
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= 10; i++) {
+            assertFalse(recorder.record(frame(i, i)));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue("elapsed " + elapsedMs, elapsedMs < 1000);
+        assertEquals(10, recorder.getDroppedCount());
+
+        writerBlocked.countDown();
+        recorder.close();
+        assertEquals(1, recorder.getRecordedCount());
+        RecordedFrameSource source = new RecordedFrameSource(directory, RecordedFrameSource.Speed.MAXIMUM, 1);
+        assertEquals(1, source.getFrameCount());
+    }
+
+    @Test
+    public void recordDropsInsteadOfBlockingWhenClosed() throws IOException {
+        FrameRecorder recorder = new FrameRecorder(directory, 1024, 1);
+        assertTrue(recorder.record(frame(0, 0)));
+        recorder.close();
+        assertFalse(recorder.record(frame(1, 1)));
+        assertEquals(1, recorder.getDroppedCount());
+        assertEquals(1, recorder.getRecordedCount());
+    }
+}
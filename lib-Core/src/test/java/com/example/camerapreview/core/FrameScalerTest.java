@@ -0,0 +1,197 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class FrameScalerTest {
+
+    // NV21 排列、带行填充的随机帧
+    private static YuvFrame interleaved(Random random, int width, int height, int rowStride) {
+        ByteBuffer y = randomBuffer(random, rowStride * height);
+        ByteBuffer vu = randomBuffer(random, rowStride * ((height + 1) / 2) + 1);
+        ByteBuffer v = vu.duplicate();
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        return new YuvFrame(width, height, y, u, v, rowStride, rowStride, 2, 0, frame -> {
+        });
+    }
+
+    // I420 排列，U、V 各自独立
+    private static YuvFrame planar(Random random, int width, int height, int rowStride) {
+        int chromaRows = (height + 1) / 2;
+        return new YuvFrame(width, height, randomBuffer(random, rowStride * height),
+                randomBuffer(random, rowStride / 2 * chromaRows), randomBuffer(random, rowStride / 2 * chromaRows),
+                rowStride, rowStride / 2, 1, 0, frame -> {
+        });
+    }
+
+    private static ByteBuffer randomBuffer(Random random, int size) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        return ByteBuffer.wrap(data);
+    }
+
+    private static int pixel(ByteBuffer plane, int rowStride, int pixelStride, int x, int y) {
+        return plane.get(y * rowStride + x * pixelStride) & 0xFF;
+    }
+
+    // 逐像素计算的参考实现，与 FrameScaler 的定义相同
+    private static byte[] referencePlane(FrameScaler.Filter filter, ByteBuffer plane, int rowStride, int pixelStride,
+                                         int left, int top, int cropWidth, int cropHeight, int outWidth,
+                                         int outHeight) {
+        byte[] out = new byte[outWidth * outHeight];
+        for (int oy = 0; oy < outHeight; oy++) {
+            for (int ox = 0; ox < outWidth; ox++) {
+                int value;
+                if (filter == FrameScaler.Filter.BOX) {
+                    int x0 = left + ox * cropWidth / outWidth;
+                    int x1 = Math.max(left + (ox + 1) * cropWidth / outWidth, x0 + 1);
+                    int y0 = top + oy * cropHeight / outHeight;
+                    int y1 = Math.max(top + (oy + 1) * cropHeight / outHeight, y0 + 1);
+                    int sum = 0;
+                    for (int y = y0; y < y1; y++) {
+                        for (int x = x0; x < x1; x++) {
+                            sum += pixel(plane, rowStride, pixelStride, x, y);
+                        }
+                    }
+                    int count = (x1 - x0) * (y1 - y0);
+                    value = (sum + count / 2) / count;
+                } else {
+                    int px = position(cropWidth, outWidth, ox);
+                    int py = position(cropHeight, outHeight, oy);
+                    int x = left + px / 256;
+                    int y = top + py / 256;
+                    int fx = px % 256;
+                    int fy = py % 256;
+                    int xr = Math.min(x + 1, left + cropWidth - 1);
+                    int yb = Math.min(y + 1, top + cropHeight - 1);
+                    double topValue = pixel(plane, rowStride, pixelStride, x, y) * (256 - fx)
+                            + pixel(plane, rowStride, pixelStride, xr, y) * fx;
+                    double bottomValue = pixel(plane, rowStride, pixelStride, x, yb) * (256 - fx)
+                            + pixel(plane, rowStride, pixelStride, xr, yb) * fx;
+                    value = (int) Math.floor((topValue * (256 - fy) + bottomValue * fy) / 65536.0 + 0.5);
+                }
+                out[oy * outWidth + ox] = (byte) value;
+            }
+        }
+        return out;
+    }
+
+    // 输出像素中心映射到源坐标，1/256 像素为单位
+    private static int position(int cropSize, int outSize, int o) {
+        int p = (2 * o + 1) * cropSize * 128 / outSize - 128;
+        return Math.max(0, Math.min(p, (cropSize - 1) * 256));
+    }
+
+    private static void assertMatchesReference(FrameScaler.Filter filter, YuvFrame frame, int left, int top,
+                                               int cropWidth, int cropHeight, FrameScaler.Output out) {
+        assertArrayEquals(referencePlane(filter, frame.getYPlane(), frame.getYRowStride(), 1, left, top,
+                cropWidth, cropHeight, out.getWidth(), out.getHeight()), out.getLuma());
+        if (out.getU() != null) {
+            int chromaLeft = left / 2;
+            int chromaTop = top / 2;
+            int chromaWidth = (left + cropWidth + 1) / 2 - chromaLeft;
+            int chromaHeight = (top + cropHeight + 1) / 2 - chromaTop;
+            assertArrayEquals(referencePlane(filter, frame.getUPlane(), frame.getUvRowStride(),
+                    frame.getUvPixelStride(), chromaLeft, chromaTop, chromaWidth, chromaHeight,
+                    out.getChromaWidth(), out.getChromaHeight()), out.getU());
+            assertArrayEquals(referencePlane(filter, frame.getVPlane(), frame.getUvRowStride(),
+                    frame.getUvPixelStride(), chromaLeft, chromaTop, chromaWidth, chromaHeight,
+                    out.getChromaWidth(), out.getChromaHeight()), out.getV());
+        }
+    }
+
+    @Test
+    public void quarterLumaIsTwoByTwoAverage() {
+        YuvFrame frame = planar(new Random(1), 34, 18, 48);
+        FrameScaler.Output out = new FrameScaler.Output(17, 9, false);
+        new FrameScaler(FrameScaler.Filter.BOX).scale(frame, out);
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 17; col++) {
+                int sum = pixel(frame.getYPlane(), 48, 1, col * 2, row * 2)
+                        + pixel(frame.getYPlane(), 48, 1, col * 2 + 1, row * 2)
+                        + pixel(frame.getYPlane(), 48, 1, col * 2, row * 2 + 1)
+                        + pixel(frame.getYPlane(), 48, 1, col * 2 + 1, row * 2 + 1);
+                assertEquals((sum + 2) / 4, out.getLuma()[row * 17 + col] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void boxMatchesReferenceAtOddSizesAndStrides() {
+        YuvFrame frame = interleaved(new Random(2), 33, 17, 40);
+        FrameScaler scaler = new FrameScaler(FrameScaler.Filter.BOX);
+        FrameScaler.Output full = new FrameScaler.Output(16, 8, true);
+        scaler.scale(frame, full);
+        assertMatchesReference(FrameScaler.Filter.BOX, frame, 0, 0, 33, 17, full);
+
+        FrameScaler.Output roi = new FrameScaler.Output(7, 5, true);
+        scaler.scale(frame, 3, 5, 21, 11, roi);
+        assertMatchesReference(FrameScaler.Filter.BOX, frame, 3, 5, 21, 11, roi);
+    }
+
+    @Test
+    public void bilinearMatchesReferenceAtOddSizesAndStrides() {
+        YuvFrame frame = planar(new Random(3), 31, 23, 36);
+        FrameScaler scaler = new FrameScaler(FrameScaler.Filter.BILINEAR);
+        FrameScaler.Output down = new FrameScaler.Output(10, 7, true);
+        scaler.scale(frame, 3, 5, 21, 11, down);
+        assertMatchesReference(FrameScaler.Filter.BILINEAR, frame, 3, 5, 21, 11, down);
+
+        // 放大时同样不越界
+        FrameScaler.Output up = new FrameScaler.Output(13, 9, true);
+        scaler.scale(frame, 24, 18, 7, 5, up);
+        assertMatchesReference(FrameScaler.Filter.BILINEAR, frame, 24, 18, 7, 5, up);
+    }
+
+    @Test
+    public void sameSizeCropCopiesPixels() {
+        YuvFrame frame = interleaved(new Random(4), 33, 17, 40);
+        for (FrameScaler.Filter filter : FrameScaler.Filter.values()) {
+            FrameScaler.Output out = new FrameScaler.Output(21, 11, false);
+            new FrameScaler(filter).scale(frame, 3, 5, 21, 11, out);
+            for (int row = 0; row < 11; row++) {
+                for (int col = 0; col < 21; col++) {
+                    assertEquals(filter + " (" + col + ", " + row + ")",
+                            pixel(frame.getYPlane(), 40, 1, 3 + col, 5 + row), out.getLuma()[row * 21 + col] & 0xFF);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            YuvFrame frame = interleaved(new Random(5), 320, 241, 320);
+            for (FrameScaler.Filter filter : FrameScaler.Filter.values()) {
+                FrameScaler.Output parallel = new FrameScaler.Output(107, 61, true);
+                FrameScaler.Output serial = new FrameScaler.Output(107, 61, true);
+                FrameScaler parallelScaler = new FrameScaler(filter, pool, 0);
+                // 多次处理同一实例，验证映射表与分段任务可复用
+                for (int i = 0; i < 3; i++) {
+                    parallelScaler.scale(frame, 1, 3, 317, 237, parallel);
+                }
+                new FrameScaler(filter, pool, Integer.MAX_VALUE).scale(frame, 1, 3, 317, 237, serial);
+                assertArrayEquals(serial.getLuma(), parallel.getLuma());
+                assertArrayEquals(serial.getU(), parallel.getU());
+                assertArrayEquals(serial.getV(), parallel.getV());
+                assertMatchesReference(filter, frame, 1, 3, 317, 237, parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCropOutsideFrame() {
+        YuvFrame frame = planar(new Random(6), 16, 16, 16);
+        new FrameScaler(FrameScaler.Filter.BOX).scale(frame, 8, 8, 9, 8, new FrameScaler.Output(4, 4, false));
+    }
+}
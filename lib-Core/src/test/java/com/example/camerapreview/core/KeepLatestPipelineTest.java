@@ -0,0 +1,152 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class KeepLatestPipelineTest {
+
+    @Test
+    public void slowConsumerOnlySeesLatestFrame() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> consumed = new ArrayList<>();
+        List<Integer> released = new ArrayList<>();
+        KeepLatestPipeline<Integer> pipeline = new KeepLatestPipeline<>(executor, consumed::add, released::add);
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.offer(i);
+        }
+        executor.runAll();
+
+        assertEquals(1, consumed.size());
+        assertEquals(Integer.valueOf(4), consumed.get(0));
+        assertEquals(5, released.size());
+        assertEquals(1, pipeline.getDeliveredCount());
+        assertEquals(4, pipeline.getDroppedCount());
+    }
+
+    @Test
+    public void closeReleasesPendingAndLateFrames() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> released = new ArrayList<>();
+        KeepLatestPipeline<Integer> pipeline = new KeepLatestPipeline<>(executor, frame -> {
+        }, released::add);
+
+        pipeline.offer(1);
+        pipeline.close();
+        pipeline.offer(2);
+        executor.runAll();
+
+        assertEquals(2, released.size());
+        assertEquals(0, pipeline.getDeliveredCount());
+        assertEquals(2, pipeline.getDroppedCount());
+    }
+
+    @Test
+    public void throwingConsumerDoesNotStallPipeline() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> consumed = new ArrayList<>();
+        List<Integer> released = new ArrayList<>();
+        KeepLatestPipeline<Integer> pipeline = new KeepLatestPipeline<>(executor, frame -> {
+            consumed.add(frame);
+            if (frame == 1) {
+                throw new IllegalStateException("analyzer failed");
+            }
+        }, released::add);
+
+        pipeline.offer(1);
+        executor.runAll();
+        pipeline.offer(2);
+        executor.runAll();
+
+        assertEquals(2, consumed.size());
+        assertEquals(Integer.valueOf(2), consumed.get(1));
+        assertEquals(2, released.size());
+        assertEquals(2, pipeline.getDeliveredCount());
+        assertEquals(1, pipeline.getFailedCount());
+    }
+
+    @Test
+    public void everyFrameReleasedExactlyOnceUnderLoad() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final int frames = 2000;
+        final AtomicInteger releasedCount = new AtomicInteger();
+        final boolean[] released = new boolean[frames];
+        final CountDownLatch done = new CountDownLatch(frames);
+        KeepLatestPipeline<Integer> pipeline = new KeepLatestPipeline<>(executor, frame -> {
+            // 模拟耗时分析
+            long end = System.nanoTime() + 20_000;
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+        }, frame -> {
+            synchronized (released) {
+                assertTrue("released twice: " + frame, !released[frame]);
+                released[frame] = true;
+            }
+            releasedCount.incrementAndGet();
+            done.countDown();
+        });
+
+        for (int i = 0; i < frames; i++) {
+            pipeline.offer(i);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(frames, releasedCount.get());
+        assertEquals(frames, pipeline.getDeliveredCount() + pipeline.getDroppedCount());
+        assertTrue(pipeline.getDroppedCount() > 0);
+    }
+
+    @Test
+    public void rejectedExecutionReleasesFrameAndRetries() {
+        ManualExecutor executor = new ManualExecutor();
+        List<Integer> consumed = new ArrayList<>();
+        List<Integer> released = new ArrayList<>();
+        KeepLatestPipeline<Integer> pipeline = new KeepLatestPipeline<>(command -> {
+            if (released.isEmpty()) {
+                throw new RejectedExecutionException();
+            }
+            executor.execute(command);
+        }, consumed::add, released::add);
+
+        pipeline.offer(1);
+        assertEquals(1, released.size());
+        assertEquals(1, pipeline.getDroppedCount());
+
+        // 被拒绝后仍能重新调度
+        pipeline.offer(2);
+        executor.runAll();
+        assertEquals(1, consumed.size());
+        assertEquals(Integer.valueOf(2), consumed.get(0));
+        assertEquals(2, released.size());
+        assertEquals(1, pipeline.getDeliveredCount());
+    }
+
+    private static class ManualExecutor implements java.util.concurrent.Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeepWarmControllerTest {
+
+    private static final long GRACE_MS = 3000;
+    private FakeCamera camera;
+    private FakeScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        camera = new FakeCamera();
+        scheduler = new FakeScheduler();
+    }
+
+    @Test
+    public void quickSwitchesReuseOpenDevice() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        for (int i = 0; i < 10; i++) {
+            controller.stop();
+            scheduler.advance(500);
+            controller.start();
+        }
+
+        assertEquals(1, camera.opens);
+        assertEquals(0, camera.closes);
+        assertEquals(10, camera.pauses);
+        assertEquals(10, controller.getResumeCount());
+    }
+
+    @Test
+    public void expiredGraceClosesDevice() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        controller.stop();
+        scheduler.advance(GRACE_MS);
+
+        assertEquals(1, camera.closes);
+        assertFalse(controller.isOpen());
+
+        controller.start();
+        assertEquals(2, camera.opens);
+        assertEquals(0, controller.getResumeCount());
+    }
+
+    @Test
+    public void opensSavedComparedToFullTeardown() {
+        // 模拟：快速切换 5 次、长时间离开 1 次、再快速切换 3 次
+        long[] backgroundMillis = {200, 800, 1500, 100, 2900, 60000, 300, 400, 1000};
+        KeepWarmController warm = new KeepWarmController(camera, scheduler, GRACE_MS);
+        FakeCamera coldCamera = new FakeCamera();
+        FakeScheduler coldScheduler = new FakeScheduler();
+        KeepWarmController cold = new KeepWarmController(coldCamera, coldScheduler, 0);
+
+        warm.start();
+        cold.start();
+        for (long millis : backgroundMillis) {
+            warm.stop();
+            cold.stop();
+            scheduler.advance(millis);
+            coldScheduler.advance(millis);
+            warm.start();
+            cold.start();
+        }
+
+        assertEquals(10, coldCamera.opens);
+        assertEquals(2, camera.opens);
+        assertEquals(8, warm.getResumeCount());
+    }
+
+    @Test
+    public void releaseCancelsPendingTimer() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        controller.stop();
+        controller.release();
+        scheduler.advance(GRACE_MS);
+
+        assertEquals(1, camera.closes);
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void stopWhenClosedIsIgnored() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.stop();
+        controller.release();
+
+        assertEquals(0, camera.pauses);
+        assertEquals(0, camera.closes);
+    }
+
+    @Test
+    public void pauseKeepsDeviceOpenUntilStart() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        controller.pause();
+        scheduler.advance(GRACE_MS * 10);
+        controller.start();
+
+        assertEquals(1, camera.opens);
+        assertEquals(1, camera.pauses);
+        assertEquals(1, camera.resumes);
+        assertEquals(0, camera.closes);
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void stopAfterPauseStartsGrace() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        controller.pause();
+        controller.stop();
+        scheduler.advance(GRACE_MS);
+
+        assertEquals(1, camera.pauses);
+        assertEquals(1, camera.closes);
+        assertFalse(controller.isOpen());
+    }
+
+    @Test
+    public void reopenAfterErrorCancelsGraceTimer() {
+        KeepWarmController controller = new KeepWarmController(camera, scheduler, GRACE_MS);
+        controller.start();
+        controller.stop();
+        // 宽限期内相机出错关闭，回到前台时重新打开
+        scheduler.advance(1000);
+        controller.reopen();
+        scheduler.advance(GRACE_MS * 2);
+
+        assertEquals(2, camera.opens);
+        assertEquals(0, camera.closes);
+        assertEquals(2, controller.getOpenCount());
+        assertTrue(controller.isOpen());
+
+        // 回到运行状态后解绑仍会停止重复请求
+        controller.pause();
+        assertEquals(2, camera.pauses);
+    }
+
+    private static class FakeCamera implements KeepWarmController.Camera {
+        int opens;
+        int pauses;
+        int resumes;
+        int closes;
+
+        @Override
+        public void open() {
+            opens++;
+        }
+
+        @Override
+        public void pause() {
+            pauses++;
+        }
+
+        @Override
+        public void resume() {
+            resumes++;
+        }
+
+        @Override
+        public void close() {
+            closes++;
+        }
+    }
+
+    private static class FakeScheduler implements KeepWarmController.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> deadlines = new ArrayList<>();
+        long now;
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            tasks.add(task);
+            deadlines.add(now + delayMillis);
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            int index = tasks.indexOf(task);
+            while (index >= 0) {
+                tasks.remove(index);
+                deadlines.remove(index);
+                index = tasks.indexOf(task);
+            }
+        }
+
+        void advance(long millis) {
+            now += millis;
+            for (int i = 0; i < tasks.size(); ) {
+                if (deadlines.get(i) <= now) {
+                    Runnable task = tasks.remove(i);
+                    deadlines.remove(i);
+                    task.run();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MultiCameraManagerTest {
+
+    private static final long FPS_30 = 33_333_333L;
+
+    // 模拟多台设备：每个相机打开后在自己的线程上按固定帧间隔产生 frames 帧
+    static class FakeBackend implements MultiCameraManager.Backend {
+        final Map<String, List<ResolutionPolicyEngine.Candidate>> cameras = new HashMap<>();
+        final Map<String, Long> frameIntervalsNs = new HashMap<>();
+        final Map<String, Resolution> opened = new ConcurrentHashMap<>();
+        final Map<String, String> callbackThreads = new ConcurrentHashMap<>();
+        final Map<String, Thread> threads = new HashMap<>();
+        List<Set<String>> concurrent;
+        int frames = 31;
+
+        void addCamera(String cameraId, long frameIntervalNs) {
+            cameras.put(cameraId, Arrays.asList(
+                    new ResolutionPolicyEngine.Candidate(new Resolution(1920, 1080), FPS_30),
+                    new ResolutionPolicyEngine.Candidate(new Resolution(1280, 720), FPS_30),
+                    new ResolutionPolicyEngine.Candidate(new Resolution(640, 480), FPS_30)));
+            frameIntervalsNs.put(cameraId, frameIntervalNs);
+        }
+
+        @Override
+        public List<String> getCameraIds() {
+            List<String> ids = new ArrayList<>(cameras.keySet());
+            Collections.sort(ids);
+            return ids;
+        }
+
+        @Override
+        public List<Set<String>> getConcurrentCameraIds() {
+            return concurrent;
+        }
+
+        @Override
+        public List<ResolutionPolicyEngine.Candidate> getPreviewCandidates(String cameraId) {
+            return cameras.get(cameraId);
+        }
+
+        @Override
+        public void open(final String cameraId, Resolution size, final MultiCameraManager.Callback callback) {
+            opened.put(cameraId, size);
+            final long interval = frameIntervalsNs.get(cameraId);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    callbackThreads.put(cameraId, Thread.currentThread().getName());
+                    callback.onStreaming();
+                    for (int i = 0; i < frames; i++) {
+                        callback.onFrame(1_000_000_000L + i * interval);
+                    }
+                }
+            }, "fake-camera-" + cameraId);
+            threads.put(cameraId, thread);
+            thread.start();
+        }
+
+        @Override
+        public void close(String cameraId) {
+            opened.remove(cameraId);
+        }
+
+        void awaitFrames() throws InterruptedException {
+            for (Thread thread : threads.values()) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    public void streamsCamerasOnTheirOwnThreads() throws InterruptedException {
+        FakeBackend backend = new FakeBackend();
+        backend.addCamera("0", FPS_30);
+        backend.addCamera("1", 66_666_666L);
+        backend.addCamera("2", FPS_30);
+        backend.concurrent = Arrays.<Set<String>>asList(set("0", "1"), set("0", "2"));
+
+        MultiCameraManager manager = new MultiCameraManager(backend, 30, 1920L * 1080 * 30);
+        manager.start(Arrays.asList("0", "1"), 1080, 1920);
+        backend.awaitFrames();
+
+        assertEquals(2, backend.opened.size());
+        assertEquals(new HashSet<>(Arrays.asList("fake-camera-0", "fake-camera-1")),
+                new HashSet<>(backend.callbackThreads.values()));
+        MultiCameraManager.Stream first = manager.getStream("0");
+        assertEquals(MultiCameraManager.State.STREAMING, first.getState());
+        assertEquals(30, first.getFps(), 0.1);
+        assertEquals(15, manager.getStream("1").getFps(), 0.1);
+
+        manager.stop();
+        assertTrue(backend.opened.isEmpty());
+        assertEquals(MultiCameraManager.State.CLOSED, first.getState());
+        assertTrue(manager.getStreams().isEmpty());
+    }
+
+    @Test
+    public void budgetIsSharedBetweenCameras() throws InterruptedException {
+        FakeBackend backend = new FakeBackend();
+        backend.addCamera("0", FPS_30);
+        backend.addCamera("1", FPS_30);
+
+        // 单相机可用 1080p，两台各分一半只够 720p
+        MultiCameraManager single = new MultiCameraManager(backend, 30, 1920L * 1080 * 30);
+        single.start(Collections.singletonList("0"), 1080, 1920);
+        assertEquals("1920x1080", backend.opened.get("0").toString());
+        single.stop();
+        backend.awaitFrames();
+
+        MultiCameraManager dual = new MultiCameraManager(backend, 30, 1920L * 1080 * 30);
+        dual.start(Arrays.asList("0", "1"), 1080, 1920);
+        assertEquals("1280x720", backend.opened.get("0").toString());
+        assertEquals("1280x720", backend.opened.get("1").toString());
+        dual.stop();
+        backend.awaitFrames();
+    }
+
+    @Test
+    public void rejectsUnsupportedCombination() {
+        FakeBackend backend = new FakeBackend();
+        backend.addCamera("0", FPS_30);
+        backend.addCamera("1", FPS_30);
+        backend.addCamera("2", FPS_30);
+        backend.concurrent = Collections.singletonList(set("0", "1"));
+
+        MultiCameraManager manager = new MultiCameraManager(backend, 30, 1920L * 1080 * 30);
+        try {
+            manager.start(Arrays.asList("1", "2"), 1080, 1920);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(backend.opened.isEmpty());
+        }
+        assertEquals(Arrays.asList("0", "1"), manager.selectConcurrentCameras(3));
+    }
+
+    @Test
+    public void selectsWithoutConcurrencyInfo() {
+        FakeBackend backend = new FakeBackend();
+        backend.addCamera("0", FPS_30);
+        backend.addCamera("1", FPS_30);
+        MultiCameraManager manager = new MultiCameraManager(backend, 30, 1920L * 1080 * 30);
+        assertEquals(Arrays.asList("0", "1"), manager.selectConcurrentCameras(4));
+
+        // 系统报告不支持同时打开
+        backend.concurrent = Collections.emptyList();
+        assertEquals(Collections.singletonList("0"), manager.selectConcurrentCameras(4));
+    }
+
+    private static Set<String> set(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+public class PreviewGeometryTest {
+
+    @Test
+    public void fitCenterLetterboxesPortraitView() {
+        float[] transform = new float[4];
+        // 1920x1080 旋转为 1080x1920 后放入 1080x2400 的 View，上下留边
+        PreviewGeometry.fitCenter(1920, 1080, 1080, 2400, transform);
+        assertArrayEquals(new float[]{0, 240, 1, 0.8f}, transform, 1e-6f);
+    }
+
+    @Test
+    public void measureAspectRatio() {
+        int[] measured = new int[2];
+        PreviewGeometry.measureAspectRatio(1080, 2400, 3, 4, measured);
+        assertArrayEquals(new int[]{1080, 1440}, measured);
+        PreviewGeometry.measureAspectRatio(2400, 1080, 4, 3, measured);
+        assertArrayEquals(new int[]{1440, 1080}, measured);
+        PreviewGeometry.measureAspectRatio(1080, 2400, 0, 0, measured);
+        assertArrayEquals(new int[]{1080, 2400}, measured);
+    }
+}
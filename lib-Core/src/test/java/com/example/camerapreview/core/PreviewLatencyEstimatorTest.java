@@ -0,0 +1,56 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PreviewLatencyEstimatorTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void matchesFramesAndReportsPercentiles() {
+        PreviewLatencyEstimator estimator = new PreviewLatencyEstimator();
+        // 100 帧，延迟依次为 1..100 ms
+        for (int i = 1; i <= 100; i++) {
+            long sensor = i * 33 * MS;
+            estimator.onSensorTimestamp(sensor);
+            estimator.onFrameQueued(sensor, sensor + i * MS);
+        }
+        PreviewLatencyEstimator.Snapshot snapshot = estimator.snapshot();
+        assertEquals(100, snapshot.getMatchedCount());
+        assertEquals(50 * MS, snapshot.getP50Ns());
+        assertEquals(90 * MS, snapshot.getP90Ns());
+        assertEquals(99 * MS, snapshot.getP99Ns());
+        assertEquals(100 * MS, snapshot.getMaxNs());
+    }
+
+    @Test
+    public void skippedFramesStillMatchLaterOnes() {
+        PreviewLatencyEstimator estimator = new PreviewLatencyEstimator();
+        // 显示跟不上时中间的帧被跳过，只有最新一帧送显
+        estimator.onSensorTimestamp(100 * MS);
+        estimator.onSensorTimestamp(133 * MS);
+        estimator.onSensorTimestamp(166 * MS);
+        estimator.onFrameQueued(166 * MS, 206 * MS);
+        // 同一帧不会匹配两次
+        estimator.onFrameQueued(166 * MS, 216 * MS);
+
+        PreviewLatencyEstimator.Snapshot snapshot = estimator.snapshot();
+        assertEquals(1, snapshot.getMatchedCount());
+        assertEquals(1, snapshot.getUnmatchedCount());
+        assertEquals(40 * MS, snapshot.getP50Ns());
+    }
+
+    @Test
+    public void implausibleLatencyIsDropped() {
+        PreviewLatencyEstimator estimator = new PreviewLatencyEstimator();
+        // 传感器时间戳与显示侧时钟不同源
+        estimator.onSensorTimestamp(5_000 * MS);
+        estimator.onFrameQueued(5_000 * MS, 1_000 * MS);
+
+        PreviewLatencyEstimator.Snapshot snapshot = estimator.snapshot();
+        assertEquals(1, snapshot.getImplausibleCount());
+        assertEquals(0, snapshot.getP50Ns());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PreviewProfileTest {
+
+    // 常见后置相机的 CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES
+    private static final int[][] REAR = {
+            {15, 15}, {7, 30}, {15, 30}, {30, 30}, {24, 24}, {15, 60}, {60, 60}
+    };
+    // 只支持 30 fps 的 LEGACY 设备
+    private static final int[][] LEGACY = {{15, 30}, {30, 30}};
+    // 最低只有 24 fps 的相机
+    private static final int[][] HIGH_ONLY = {{24, 30}, {30, 30}, {24, 24}};
+
+    @Test
+    public void lowLatencyPrefersHighestFixedRange() {
+        assertArrayEquals(new int[]{60, 60}, choose(PreviewProfile.LOW_LATENCY, REAR));
+        assertArrayEquals(new int[]{30, 30}, choose(PreviewProfile.LOW_LATENCY, LEGACY));
+    }
+
+    @Test
+    public void balancedCapsAt30AndAllowsFrameDrop() {
+        assertArrayEquals(new int[]{7, 30}, choose(PreviewProfile.BALANCED, REAR));
+        assertArrayEquals(new int[]{15, 30}, choose(PreviewProfile.BALANCED, LEGACY));
+        assertArrayEquals(new int[]{24, 30}, choose(PreviewProfile.BALANCED, HIGH_ONLY));
+    }
+
+    @Test
+    public void lowPowerPrefersLowestCapAboveFloor() {
+        assertArrayEquals(new int[]{15, 15}, choose(PreviewProfile.LOW_POWER, REAR));
+        assertArrayEquals(new int[]{15, 30}, choose(PreviewProfile.LOW_POWER, LEGACY));
+        assertArrayEquals(new int[]{24, 24}, choose(PreviewProfile.LOW_POWER, HIGH_ONLY));
+    }
+
+    @Test
+    public void emptyRanges() {
+        assertEquals(-1, PreviewProfile.BALANCED.chooseFpsRange(new int[0][]));
+    }
+
+    private static int[] choose(PreviewProfile profile, int[][] ranges) {
+        return ranges[profile.chooseFpsRange(ranges)];
+    }
+}
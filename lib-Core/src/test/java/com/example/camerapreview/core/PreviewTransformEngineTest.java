@@ -0,0 +1,92 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PreviewTransformEngineTest {
+
+    @Test
+    public void naturalOrientationMatchesFitCenter() {
+        PreviewTransformEngine engine = new PreviewTransformEngine();
+        engine.update(1920, 1080, 1080, 2400);
+        float[] fit = new float[4];
+        PreviewGeometry.fitCenter(1920, 1080, 1080, 2400, fit);
+
+        float[] matrix = engine.getMatrix(PreviewTransformEngine.Facing.BACK, 0);
+        assertArrayEquals(new float[]{fit[2], 0, fit[0], 0, fit[3], fit[1], 0, 0, 1}, matrix, 1e-3f);
+    }
+
+    @Test
+    public void landscapeRotationsLetterboxSideways() {
+        PreviewTransformEngine engine = new PreviewTransformEngine();
+        engine.update(1920, 1080, 2400, 1080);
+        // 1080x1920 的自然方向画面转正后为 1920x1080，左右各留 240
+        for (int rotation : new int[]{1, 3}) {
+            for (PreviewTransformEngine.Facing facing : PreviewTransformEngine.Facing.values()) {
+                assertArrayEquals(new float[]{240, 0, 2160, 1080},
+                        bounds(engine.getMatrix(facing, rotation), 2400, 1080), 1e-2f);
+            }
+        }
+    }
+
+    @Test
+    public void rotationDirection() {
+        PreviewTransformEngine engine = new PreviewTransformEngine();
+        engine.update(1080, 1080, 1000, 1000);
+        // ROTATION_90：画面需逆时针转 90 度，View 左上角的内容移到左下角
+        float[] point = apply(engine.getMatrix(PreviewTransformEngine.Facing.BACK, 1), 0, 0);
+        assertArrayEquals(new float[]{0, 1000}, point, 1e-2f);
+        point = apply(engine.getMatrix(PreviewTransformEngine.Facing.BACK, 2), 0, 0);
+        assertArrayEquals(new float[]{1000, 1000}, point, 1e-2f);
+    }
+
+    @Test
+    public void sensorOrientationPerFacing() {
+        PreviewTransformEngine engine = new PreviewTransformEngine();
+        engine.update(1920, 1080, 1080, 2400);
+        // 传感器方向为 0 的前置相机（如部分平板外接相机），画面在自然方向下仍是横的
+        engine.setSensorOrientation(PreviewTransformEngine.Facing.FRONT, 0);
+        assertArrayEquals(new float[]{0, 896.25f, 1080, 1503.75f},
+                bounds(engine.getMatrix(PreviewTransformEngine.Facing.FRONT, 0), 1080, 2400), 1e-2f);
+        assertArrayEquals(new float[]{0, 240, 1080, 2160},
+                bounds(engine.getMatrix(PreviewTransformEngine.Facing.BACK, 0), 1080, 2400), 1e-2f);
+    }
+
+    @Test
+    public void rotationDoesNotRecompute() {
+        PreviewTransformEngine engine = new PreviewTransformEngine();
+        assertTrue(engine.update(1920, 1080, 1080, 2400));
+        int computed = engine.getComputeCount();
+        float[] first = engine.getMatrix(PreviewTransformEngine.Facing.BACK, 1);
+        for (int rotation = 0; rotation < 4; rotation++) {
+            engine.getMatrix(PreviewTransformEngine.Facing.BACK, rotation);
+        }
+        assertFalse(engine.update(1920, 1080, 1080, 2400));
+        assertEquals(computed, engine.getComputeCount());
+        assertTrue(engine.update(1920, 1080, 1080, 1200));
+        // 复用同一数组
+        assertSame(first, engine.getMatrix(PreviewTransformEngine.Facing.BACK, 1));
+    }
+
+    private static float[] apply(float[] m, float x, float y) {
+        return new float[]{m[0] * x + m[1] * y + m[2], m[3] * x + m[4] * y + m[5]};
+    }
+
+    // View 四个角变换后的包围盒 {left, top, right, bottom}
+    private static float[] bounds(float[] m, int width, int height) {
+        float[] box = {Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int[] corner : new int[][]{{0, 0}, {width, 0}, {0, height}, {width, height}}) {
+            float[] p = apply(m, corner[0], corner[1]);
+            box[0] = Math.min(box[0], p[0]);
+            box[1] = Math.min(box[1], p[1]);
+            box[2] = Math.max(box[2], p[0]);
+            box[3] = Math.max(box[3], p[1]);
+        }
+        return box;
+    }
+}
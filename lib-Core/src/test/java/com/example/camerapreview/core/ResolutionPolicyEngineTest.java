@@ -0,0 +1,97 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResolutionPolicyEngineTest {
+
+    private static final long FPS_60 = 16_666_666L;
+    private static final long FPS_30 = 33_333_333L;
+    private static final long FPS_20 = 50_000_000L;
+
+    // 典型 12MP 后置相机的 SurfaceTexture 输出尺寸，最大的两档只能到 20 fps
+    private static final List<ResolutionPolicyEngine.Candidate> REAR_12MP = sizes(
+            4032, 3024, FPS_20, 4000, 3000, FPS_20, 3840, 2160, FPS_30, 3288, 2480, FPS_30, 3200, 2400, FPS_30,
+            2688, 1512, FPS_30, 2592, 1944, FPS_30, 2048, 1536, FPS_30, 1920, 1440, FPS_30, 1920, 1080, FPS_60,
+            1600, 1200, FPS_60, 1440, 1080, FPS_60, 1280, 960, FPS_60, 1280, 720, FPS_60, 1024, 768, FPS_60,
+            800, 600, FPS_60, 720, 480, FPS_60, 640, 480, FPS_60, 640, 360, FPS_60, 352, 288, FPS_60,
+            320, 240, FPS_60, 176, 144, FPS_60);
+
+    // 典型 8MP 前置相机，含 1:1 尺寸
+    private static final List<ResolutionPolicyEngine.Candidate> FRONT_8MP = sizes(
+            3264, 2448, FPS_30, 3264, 1836, FPS_30, 2448, 2448, FPS_30, 1920, 1080, FPS_30, 1440, 1080, FPS_30,
+            1088, 1088, FPS_30, 1280, 720, FPS_30, 960, 720, FPS_30, 640, 480, FPS_30, 320, 240, FPS_30);
+
+    // 低端 LEGACY 设备，最大 720p，未报告帧间隔
+    private static final List<ResolutionPolicyEngine.Candidate> LEGACY_720P = sizes(
+            1280, 720, 0, 960, 720, 0, 800, 480, 0, 720, 480, 0, 640, 480, 0, 352, 288, 0, 320, 240, 0);
+
+    private static final ResolutionPolicyEngine DEFAULT = ResolutionPolicyEngine.createDefault();
+    private static final ResolutionPolicyEngine BUDGET_720P30 = new ResolutionPolicyEngine(30,
+            ResolutionStrategies.pixelRateBudget(1280L * 720 * 30), ResolutionStrategies.smallestCovering());
+    private static final ResolutionPolicyEngine DEFAULT_60 = new ResolutionPolicyEngine(60,
+            ResolutionStrategies.aspectRatioFirst(0.05f), ResolutionStrategies.smallestCovering());
+
+    @Test
+    public void deviceTable() {
+        Object[][] table = {
+                // 引擎, 尺寸列表, View 宽, View 高, 期望尺寸, 期望策略
+                // 20:9 全屏竖屏，没有同宽高比的尺寸，取覆盖屏幕的最小尺寸而不是 4K
+                {DEFAULT, REAR_12MP, 1080, 2400, "2688x1512", "smallest-covering"},
+                {DEFAULT, REAR_12MP, 2400, 1080, "2688x1512", "smallest-covering"},
+                // 4:3 View 优先 4:3 尺寸
+                {DEFAULT, REAR_12MP, 1080, 1440, "1440x1080", "aspect-ratio-first"},
+                {DEFAULT, REAR_12MP, 1080, 1920, "1920x1080", "aspect-ratio-first"},
+                // 小 View 不选大尺寸
+                {DEFAULT, REAR_12MP, 360, 640, "640x360", "aspect-ratio-first"},
+                // 20 fps 的 4032x3024 被排除，4:3 中能覆盖 2450x3250 的只剩 3288x2480
+                {DEFAULT, REAR_12MP, 2450, 3250, "3288x2480", "aspect-ratio-first"},
+                // 60 fps 时只剩 1080p 及以下，都不能覆盖 1440x3200，按 16:9 取最大的
+                {DEFAULT_60, REAR_12MP, 1440, 2560, "1920x1080", "aspect-ratio-first"},
+                {DEFAULT_60, REAR_12MP, 1440, 3200, "1920x1080", "fallback"},
+                // 像素吞吐预算 720p30
+                {BUDGET_720P30, REAR_12MP, 1080, 2400, "1280x720", "pixel-rate-budget"},
+                {BUDGET_720P30, REAR_12MP, 480, 640, "640x480", "pixel-rate-budget"},
+                // 前置 1:1
+                {DEFAULT, FRONT_8MP, 1080, 1080, "1088x1088", "aspect-ratio-first"},
+                {DEFAULT, FRONT_8MP, 1080, 2400, "3264x1836", "smallest-covering"},
+                // LEGACY 设备无法覆盖全屏
+                {DEFAULT, LEGACY_720P, 1080, 2400, "1280x720", "fallback"},
+                {DEFAULT, LEGACY_720P, 480, 800, "800x480", "aspect-ratio-first"},
+        };
+        for (Object[] row : table) {
+            ResolutionPolicyEngine engine = (ResolutionPolicyEngine) row[0];
+            @SuppressWarnings("unchecked")
+            List<ResolutionPolicyEngine.Candidate> candidates = (List<ResolutionPolicyEngine.Candidate>) row[1];
+            ResolutionPolicyEngine.Decision decision = engine.select(candidates, (Integer) row[2], (Integer) row[3]);
+            String where = row[2] + "x" + row[3] + "@" + engine.getTargetFps();
+            assertEquals(where, row[4], decision.getSize().toString());
+            assertEquals(where, row[5], decision.getStrategy());
+            assertTrue(where, decision.isFpsReachable());
+        }
+    }
+
+    @Test
+    public void unreachableFpsFallsBackToAllSizes() {
+        ResolutionPolicyEngine engine = new ResolutionPolicyEngine(120, ResolutionStrategies.smallestCovering());
+        ResolutionPolicyEngine.Decision decision = engine.select(FRONT_8MP, 720, 1280);
+        assertEquals(new Resolution(1280, 720), decision.getSize());
+        assertEquals("smallest-covering", decision.getStrategy());
+        assertFalse(decision.isFpsReachable());
+    }
+
+    private static List<ResolutionPolicyEngine.Candidate> sizes(long... values) {
+        List<ResolutionPolicyEngine.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 3) {
+            candidates.add(new ResolutionPolicyEngine.Candidate(
+                    new Resolution((int) values[i], (int) values[i + 1]), values[i + 2]));
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SyntheticFrameSourceTest {
+
+    @Test
+    public void producesTimestampedFramesThatConvert() throws InterruptedException {
+        SyntheticFrameSource source = new SyntheticFrameSource(97, 55, 200, 2);
+        final List<Long> timestamps = new ArrayList<>();
+        final int[] argb = new int[97 * 55];
+        final YuvToArgbConverter converter = new YuvToArgbConverter();
+        final CountDownLatch done = new CountDownLatch(10);
+        source.start(frame -> {
+            assertEquals(97, frame.getWidth());
+            assertEquals(55, frame.getHeight());
+            frame.toArgb(converter, argb);
+            synchronized (timestamps) {
+                timestamps.add(frame.getTimestampNs());
+            }
+            frame.close();
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        source.stop();
+
+        synchronized (timestamps) {
+            for (int i = 1; i < timestamps.size(); i++) {
+                assertTrue(timestamps.get(i) > timestamps.get(i - 1));
+            }
+        }
+        assertEquals(0, source.getDroppedCount());
+        assertEquals(0xFF, argb[0] >>> 24);
+    }
+
+    @Test
+    public void dropsWhenConsumerHoldsAllFrames() throws InterruptedException {
+        SyntheticFrameSource source = new SyntheticFrameSource(64, 48, 500, 3);
+        final List<YuvFrame> held = new ArrayList<>();
+        source.start(frame -> {
+            synchronized (held) {
+                held.add(frame);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (source.getDroppedCount() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        source.stop();
+
+        assertEquals(3, source.getProducedCount());
+        assertTrue(source.getDroppedCount() >= 5);
+        synchronized (held) {
+            for (YuvFrame frame : held) {
+                frame.close();
+            }
+        }
+    }
+}
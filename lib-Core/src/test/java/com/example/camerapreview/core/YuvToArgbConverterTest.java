@@ -0,0 +1,159 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class YuvToArgbConverterTest {
+
+    @Test
+    public void planarWithRowPaddingMatchesReference() {
+        Frame frame = Frame.planar(new Random(1), 64, 48, 80);
+        int[] out = new int[64 * 48];
+        new YuvToArgbConverter().convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride,
+                frame.uvPixelStride, frame.width, frame.height, out);
+        assertMatchesReference(frame, out);
+    }
+
+    @Test
+    public void interleavedOddSizeMatchesReference() {
+        Frame frame = Frame.interleaved(new Random(2), 33, 17, 40);
+        int[] out = new int[33 * 17];
+        new YuvToArgbConverter().convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride,
+                frame.uvPixelStride, frame.width, frame.height, out);
+        assertMatchesReference(frame, out);
+    }
+
+    @Test
+    public void parallelConversionMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Frame frame = Frame.interleaved(new Random(3), 320, 241, 320);
+            int[] parallel = new int[320 * 241];
+            int[] serial = new int[320 * 241];
+            YuvToArgbConverter parallelConverter = new YuvToArgbConverter(pool, 0);
+            // 多次转换同一实例，验证分段任务可复用
+            for (int i = 0; i < 3; i++) {
+                parallelConverter.convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride,
+                        frame.uvPixelStride, frame.width, frame.height, parallel);
+            }
+            new YuvToArgbConverter(pool, Integer.MAX_VALUE).convert(frame.y, frame.yRowStride, frame.u, frame.v,
+                    frame.uvRowStride, frame.uvPixelStride, frame.width, frame.height, serial);
+            for (int i = 0; i < serial.length; i++) {
+                assertEquals("pixel " + i, serial[i], parallel[i]);
+            }
+            assertMatchesReference(frame, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void byteBufferOutputIsRgba() {
+        Frame frame = Frame.planar(new Random(4), 16, 8, 16);
+        int[] ints = new int[16 * 8];
+        ByteBuffer bytes = ByteBuffer.allocate(4 + 16 * 8 * 4);
+        bytes.position(4);
+        YuvToArgbConverter converter = new YuvToArgbConverter();
+        converter.convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height, ints);
+        converter.convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride,
+                frame.width, frame.height, bytes);
+
+        assertEquals(4, bytes.position());
+        for (int i = 0; i < ints.length; i++) {
+            int offset = 4 + i * 4;
+            assertEquals((ints[i] >> 16) & 0xFF, bytes.get(offset) & 0xFF);
+            assertEquals((ints[i] >> 8) & 0xFF, bytes.get(offset + 1) & 0xFF);
+            assertEquals(ints[i] & 0xFF, bytes.get(offset + 2) & 0xFF);
+            assertEquals(0xFF, bytes.get(offset + 3) & 0xFF);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSmallOutput() {
+        Frame frame = Frame.planar(new Random(5), 8, 8, 8);
+        new YuvToArgbConverter().convert(frame.y, frame.yRowStride, frame.u, frame.v, frame.uvRowStride,
+                frame.uvPixelStride, frame.width, frame.height, new int[63]);
+    }
+
+    private static void assertMatchesReference(Frame frame, int[] out) {
+        for (int row = 0; row < frame.height; row++) {
+            for (int col = 0; col < frame.width; col++) {
+                int luma = frame.y.get(row * frame.yRowStride + col) & 0xFF;
+                int uvIndex = (row / 2) * frame.uvRowStride + (col / 2) * frame.uvPixelStride;
+                double cu = (frame.u.get(uvIndex) & 0xFF) - 128;
+                double cv = (frame.v.get(uvIndex) & 0xFF) - 128;
+                int r = referenceClamp(luma + 1.402 * cv);
+                int g = referenceClamp(luma - 0.344136 * cu - 0.714136 * cv);
+                int b = referenceClamp(luma + 1.772 * cu);
+                int actual = out[row * frame.width + col];
+                String where = "(" + col + ", " + row + ")";
+                assertEquals(where, 0xFF, actual >>> 24);
+                assertTrue(where + " r", Math.abs(((actual >> 16) & 0xFF) - r) <= 1);
+                assertTrue(where + " g", Math.abs(((actual >> 8) & 0xFF) - g) <= 1);
+                assertTrue(where + " b", Math.abs((actual & 0xFF) - b) <= 1);
+            }
+        }
+    }
+
+    private static int referenceClamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * 模拟 Image 的三个平面。
+     */
+    private static final class Frame {
+        ByteBuffer y;
+        ByteBuffer u;
+        ByteBuffer v;
+        int yRowStride;
+        int uvRowStride;
+        int uvPixelStride;
+        int width;
+        int height;
+
+        // I420：U、V 各自独立，像素跨度 1
+        static Frame planar(Random random, int width, int height, int rowStride) {
+            Frame frame = new Frame();
+            frame.width = width;
+            frame.height = height;
+            frame.yRowStride = rowStride;
+            frame.uvRowStride = rowStride / 2;
+            frame.uvPixelStride = 1;
+            frame.y = randomBuffer(random, rowStride * height);
+            int chromaRows = (height + 1) / 2;
+            frame.u = randomBuffer(random, frame.uvRowStride * chromaRows);
+            frame.v = randomBuffer(random, frame.uvRowStride * chromaRows);
+            return frame;
+        }
+
+        // NV21：V、U 交错存放在同一块内存中，像素跨度 2
+        static Frame interleaved(Random random, int width, int height, int rowStride) {
+            Frame frame = new Frame();
+            frame.width = width;
+            frame.height = height;
+            frame.yRowStride = rowStride;
+            frame.uvRowStride = rowStride;
+            frame.uvPixelStride = 2;
+            frame.y = randomBuffer(random, rowStride * height);
+            ByteBuffer vu = randomBuffer(random, rowStride * ((height + 1) / 2) + 1);
+            frame.v = vu.duplicate();
+            vu.position(1);
+            frame.u = vu.slice();
+            return frame;
+        }
+
+        private static ByteBuffer randomBuffer(Random random, int size) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            return ByteBuffer.wrap(data);
+        }
+    }
+}
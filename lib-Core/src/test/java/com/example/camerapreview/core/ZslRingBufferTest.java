@@ -0,0 +1,88 @@
+package com.example.camerapreview.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ZslRingBufferTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final List<String> released = new ArrayList<>();
+
+    // 结果为 Boolean，表示 3A 是否收敛
+    private ZslRingBuffer<String, Boolean> newBuffer(int capacity) {
+        return new ZslRingBuffer<>(capacity, converged -> converged, released::add);
+    }
+
+    @Test
+    public void evictsOldestFramesBeyondCapacity() {
+        ZslRingBuffer<String, Boolean> buffer = newBuffer(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.addFrame(i * 33 * MS, "f" + i);
+        }
+        assertEquals(3, buffer.getFrameCount());
+        assertEquals(2, buffer.getEvictedCount());
+        assertEquals("[f1, f2]", released.toString());
+    }
+
+    @Test
+    public void pairsResultsArrivingInEitherOrder() {
+        ZslRingBuffer<String, Boolean> buffer = newBuffer(3);
+        buffer.addResult(33 * MS, true);
+        buffer.addFrame(33 * MS, "f1");
+        buffer.addFrame(66 * MS, "f2");
+        // f2 的结果尚未到达，只能选 f1
+        ZslRingBuffer.Selection<String, Boolean> selection = buffer.take(Long.MAX_VALUE);
+        assertEquals("f1", selection.getFrame());
+        assertEquals(33 * MS, selection.getTimestampNs());
+        assertTrue(selection.isConverged());
+        assertNull(buffer.take(Long.MAX_VALUE));
+
+        buffer.addResult(66 * MS, false);
+        selection = buffer.take(Long.MAX_VALUE);
+        assertEquals("f2", selection.getFrame());
+        assertFalse(selection.isConverged());
+        // 取出的帧由调用方释放
+        assertTrue(released.isEmpty());
+    }
+
+    @Test
+    public void prefersNewestConvergedFrameWithinMaxAge() {
+        ZslRingBuffer<String, Boolean> buffer = newBuffer(4);
+        buffer.addFrame(0, "f0");
+        buffer.addResult(0, true);
+        buffer.addFrame(33 * MS, "f1");
+        buffer.addResult(33 * MS, true);
+        buffer.addFrame(66 * MS, "f2");
+        buffer.addResult(66 * MS, false);
+        buffer.addFrame(100 * MS, "f3");
+        buffer.addResult(100 * MS, false);
+
+        assertEquals("f1", buffer.take(70 * MS).getFrame());
+        // f0 超出时间范围，退回最新的配对帧
+        assertEquals("f3", buffer.take(70 * MS).getFrame());
+    }
+
+    @Test
+    public void orphanResultsDoNotGrowWithoutBound() {
+        ZslRingBuffer<String, Boolean> buffer = newBuffer(2);
+        for (int i = 0; i < 100; i++) {
+            buffer.addResult(i * MS, true);
+        }
+        buffer.addFrame(200 * MS, "f");
+        buffer.addResult(200 * MS, true);
+        assertEquals("f", buffer.take(0).getFrame());
+
+        buffer.addFrame(300 * MS, "g");
+        buffer.clear();
+        assertEquals("[g]", released.toString());
+        assertEquals(0, buffer.getFrameCount());
+    }
+}